@@ -0,0 +1,14 @@
+package com.akerumort.common.cache;
+
+import java.util.Collection;
+import java.util.List;
+
+// tells the other instances to drop their local copy, a null key list drops the whole cache
+@FunctionalInterface
+public interface CacheInvalidationPublisher {
+    void publishAll(String cacheName, Collection<String> keys);
+
+    default void publish(String cacheName, String key) {
+        publishAll(cacheName, key == null ? null : List.of(key));
+    }
+}
@@ -0,0 +1,104 @@
+package com.akerumort.common.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Binary Smile encoding for caches holding a single known type, so no class names are stored.
+// Values above the compression threshold are LZ4 compressed. The first byte tells the two apart.
+public class CompactRedisSerializer<T> implements RedisSerializer<T> {
+    private static final byte PLAIN = 1;
+    private static final byte LZ4 = 2;
+    // header byte plus the uncompressed length
+    private static final int LZ4_HEADER_LENGTH = 5;
+
+    private static final ObjectMapper DEFAULT_MAPPER = SmileMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final ObjectMapper objectMapper;
+    private final JavaType type;
+    private final int compressionThreshold;
+
+    public CompactRedisSerializer(Class<T> type, int compressionThreshold) {
+        this(DEFAULT_MAPPER, type, compressionThreshold);
+    }
+
+    public CompactRedisSerializer(ObjectMapper objectMapper, Class<T> type, int compressionThreshold) {
+        this.objectMapper = objectMapper;
+        this.type = objectMapper.constructType(type);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] encoded;
+        try {
+            encoded = objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + type + ": " + e.getMessage(), e);
+        }
+
+        if (encoded.length >= compressionThreshold) {
+            int maxLength = COMPRESSOR.maxCompressedLength(encoded.length);
+            byte[] compressed = new byte[LZ4_HEADER_LENGTH + maxLength];
+            int length = COMPRESSOR.compress(encoded, 0, encoded.length, compressed, LZ4_HEADER_LENGTH, maxLength);
+            if (length < encoded.length) {
+                ByteBuffer.wrap(compressed).put(LZ4).putInt(encoded.length);
+                return Arrays.copyOf(compressed, LZ4_HEADER_LENGTH + length);
+            }
+        }
+        byte[] plain = new byte[encoded.length + 1];
+        plain[0] = PLAIN;
+        System.arraycopy(encoded, 0, plain, 1, encoded.length);
+        return plain;
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            switch (bytes[0]) {
+                case PLAIN:
+                    return objectMapper.readValue(bytes, 1, bytes.length - 1, type);
+                case LZ4:
+                    int length = ByteBuffer.wrap(bytes, 1, 4).getInt();
+                    byte[] encoded = DECOMPRESSOR.decompress(bytes, LZ4_HEADER_LENGTH, length);
+                    return objectMapper.readValue(encoded, type);
+                default:
+                    // written by an older serializer, reading it as a miss lets the cache reload and overwrite it
+                    return null;
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Could not read " + type + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return type.getRawClass();
+    }
+}
@@ -0,0 +1,9 @@
+package com.akerumort.common.cache;
+
+import java.util.Collection;
+
+// deletes several entries of a cache from redis with a single command
+@FunctionalInterface
+public interface RemoteCacheEvictor {
+    void evictAll(String cacheName, Collection<String> keys);
+}
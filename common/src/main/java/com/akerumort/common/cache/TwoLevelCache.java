@@ -0,0 +1,280 @@
+package com.akerumort.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// In-process caffeine cache in front of a shared redis cache. Local entries are plain references,
+// so values handed out by the cache must not be modified by callers.
+public class TwoLevelCache implements Cache {
+    private static final Logger logger = LogManager.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final RemoteCacheEvictor remoteEvictor;
+    private final Duration ttl;
+    private final double earlyRefreshBeta;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // how long the last load of a key took and when the entry it wrote expires, for entries loaded here
+    private final com.github.benmanes.caffeine.cache.Cache<String, LoadStats> loadStats;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter coalescedLoads;
+    private final Counter earlyRefreshes;
+    private final Counter failedEarlyRefreshes;
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                         CacheInvalidationPublisher invalidationPublisher, RemoteCacheEvictor remoteEvictor,
+                         MeterRegistry meterRegistry, Duration ttl, double earlyRefreshBeta) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.remoteEvictor = remoteEvictor;
+        this.ttl = ttl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.loadStats = Caffeine.newBuilder()
+                .maximumSize(local.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(10_000L))
+                .expireAfterWrite(ttl)
+                .build();
+        this.localHits = counter(meterRegistry, "local", "hit");
+        this.localMisses = counter(meterRegistry, "local", "miss");
+        this.remoteHits = counter(meterRegistry, "redis", "hit");
+        this.remoteMisses = counter(meterRegistry, "redis", "miss");
+        this.coalescedLoads = Counter.builder("bookletter.cache.coalesced.loads").tag("cache", name).register(meterRegistry);
+        this.earlyRefreshes = Counter.builder("bookletter.cache.early.refreshes").tag("cache", name).register(meterRegistry);
+        this.failedEarlyRefreshes = Counter.builder("bookletter.cache.early.refreshes.failed")
+                .tag("cache", name).register(meterRegistry);
+        meterRegistry.gauge("bookletter.cache.local.size", Tags.of("cache", name),
+                local, cache -> cache.estimatedSize());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = lookupLocal(key);
+        if (value != null) {
+            return new SimpleValueWrapper(fromStoreValue(value));
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        local.put(localKey(key), toStoreValue(wrapper.get()));
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookupLocal(key);
+        if (value == null) {
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper == null) {
+                remoteMisses.increment();
+                return (T) load(key, valueLoader);
+            }
+            remoteHits.increment();
+            value = toStoreValue(wrapper.get());
+            local.put(localKey(key), value);
+        }
+
+        if (shouldRefreshEarly(localKey(key))) {
+            CompletableFuture<Object> refresh = new CompletableFuture<>();
+            // callers that lose the race keep serving the current value while the winner refreshes it
+            if (inFlight.putIfAbsent(localKey(key), refresh) == null) {
+                earlyRefreshes.increment();
+                try {
+                    return (T) runLoader(key, valueLoader, refresh);
+                } catch (ValueRetrievalException e) {
+                    // the current value is still valid, a failed refresh must not fail the hit
+                    failedEarlyRefreshes.increment();
+                    logger.warn("Early refresh of {} in cache {} failed: {}", key, name, e.getCause().getMessage());
+                }
+            }
+        }
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        loadStats.invalidate(localKey(key));
+        remote.put(key, value);
+        local.put(localKey(key), toStoreValue(value));
+        invalidationPublisher.publish(name, localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        loadStats.invalidate(localKey(key));
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        local.invalidate(localKey(key));
+        if (existing == null) {
+            invalidationPublisher.publish(name, localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        loadStats.invalidate(localKey(key));
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.publish(name, localKey(key));
+    }
+
+    // drops several keys with one redis DEL and one invalidation message instead of one of each per key
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> localKeys = keys.stream().map(TwoLevelCache::localKey).distinct().toList();
+        loadStats.invalidateAll(localKeys);
+        remoteEvictor.evictAll(name, localKeys);
+        local.invalidateAll(localKeys);
+        invalidationPublisher.publishAll(name, localKeys);
+    }
+
+    @Override
+    public void clear() {
+        loadStats.invalidateAll();
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.publish(name, null);
+    }
+
+    // applies an invalidation published by another instance, redis already holds the new state
+    void evictLocal(Collection<String> keys) {
+        loadStats.invalidateAll(keys);
+        local.invalidateAll(keys);
+    }
+
+    void clearLocal() {
+        loadStats.invalidateAll();
+        local.invalidateAll();
+    }
+
+    // only one loader per key runs in this instance, concurrent misses wait for its result
+    private Object load(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey(key), future);
+        if (existing != null) {
+            coalescedLoads.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        // a load that finished between the lookup and claiming the key already filled the local tier
+        Object value = local.getIfPresent(localKey(key));
+        if (value != null) {
+            inFlight.remove(localKey(key), future);
+            future.complete(fromStoreValue(value));
+            return fromStoreValue(value);
+        }
+        return runLoader(key, valueLoader, future);
+    }
+
+    private Object runLoader(Object key, Callable<?> valueLoader, CompletableFuture<Object> future) {
+        try {
+            long start = System.nanoTime();
+            Object value = valueLoader.call();
+            long loadNanos = System.nanoTime() - start;
+            put(key, value);
+            loadStats.put(localKey(key), new LoadStats(loadNanos, System.currentTimeMillis() + ttl.toMillis()));
+            future.complete(value);
+            return value;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlight.remove(localKey(key), future);
+        }
+    }
+
+    // XFetch: the closer the entry is to expiring and the slower it was to load, the likelier an early refresh
+    private boolean shouldRefreshEarly(String key) {
+        LoadStats stats = loadStats.getIfPresent(key);
+        if (stats == null || earlyRefreshBeta <= 0) {
+            return false;
+        }
+        double gapMillis = stats.loadNanos() / 1_000_000.0 * earlyRefreshBeta
+                * -Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gapMillis >= stats.expiresAtMillis();
+    }
+
+    private Object lookupLocal(Object key) {
+        Object value = local.getIfPresent(localKey(key));
+        (value != null ? localHits : localMisses).increment();
+        return value;
+    }
+
+    // redis keys are the string form of the cache key as well, so both tiers agree on key equality
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static Object toStoreValue(Object value) {
+        return value == null ? NullValue.INSTANCE : value;
+    }
+
+    private static Object fromStoreValue(Object value) {
+        return value == NullValue.INSTANCE ? null : value;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("bookletter.cache.gets")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record LoadStats(long loadNanos, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.akerumort.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Builds a TwoLevelCache per cache name on top of a RedisCacheManager and keeps the local tiers of all
+// instances coherent through redis pub/sub. Register it as a listener on getInvalidationChannel().
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    private static final Logger logger = LogManager.getLogger(TwoLevelCacheManager.class);
+    private static final String CLEAR = "clear";
+    private static final String EVICT = "evict";
+    private static final String EVICT_ALL = "evictAll";
+
+    // messages published by this instance are ignored when they come back
+    private final String instanceId = UUID.randomUUID().toString();
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisCacheManager redisCacheManager;
+    private final RedisCacheConfiguration defaultCacheConfiguration;
+    private final TwoLevelCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(RedisConnectionFactory connectionFactory, RedisCacheConfiguration redisCacheConfiguration,
+                                TwoLevelCacheProperties properties, MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        properties.getCaches().keySet().forEach(cacheName ->
+                cacheConfigurations.put(cacheName, configure(redisCacheConfiguration, properties.specFor(cacheName))));
+        this.defaultCacheConfiguration = configure(redisCacheConfiguration, properties.getDefaults());
+        this.redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaultCacheConfiguration)
+                .withInitialCacheConfigurations(cacheConfigurations)
+                .build();
+        this.redisCacheManager.initializeCaches();
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    // the configuration the redis tier of a cache was built with, for code reading its entries directly
+    public RedisCacheConfiguration getRedisCacheConfiguration(String name) {
+        return redisCacheManager.getCacheConfigurations().getOrDefault(name, defaultCacheConfiguration);
+    }
+
+    public String getInvalidationChannel() {
+        return properties.getInvalidationChannel();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // instance id, operation, cache name and, for evictions, the key, one per line;
+        // evictAll carries one key per line after the cache name
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 4);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[1]) && parts.length == 4) {
+            cache.evictLocal(List.of(parts[3]));
+        } else if (EVICT_ALL.equals(parts[1]) && parts.length == 4) {
+            cache.evictLocal(List.of(parts[3].split("\n")));
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        TwoLevelCacheProperties.Spec spec = properties.specFor(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .build();
+        Duration ttl = getRedisCacheConfiguration(name).getTtlFunction().getTimeToLive(name, null);
+        return new TwoLevelCache(name, local, redisCacheManager.getCache(name), this::publishInvalidation,
+                this::evictRemote, meterRegistry, ttl, properties.getEarlyRefreshBeta());
+    }
+
+    // the keys are built the way RedisCache builds them, so this deletes the entries it wrote
+    private void evictRemote(String cacheName, Collection<String> keys) {
+        RedisCacheConfiguration configuration = getRedisCacheConfiguration(cacheName);
+        String keyPrefix = configuration.usePrefix() ? configuration.getKeyPrefixFor(cacheName) : "";
+        byte[][] redisKeys = keys.stream()
+                .map(key -> toBytes(configuration.getKeySerializationPair().write(keyPrefix + key)))
+                .toArray(byte[][]::new);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.keyCommands().del(redisKeys);
+        }
+    }
+
+    private void publishInvalidation(String cacheName, Collection<String> keys) {
+        String payload;
+        if (keys == null) {
+            payload = String.join("\n", instanceId, CLEAR, cacheName);
+        } else if (keys.size() == 1) {
+            payload = String.join("\n", instanceId, EVICT, cacheName, keys.iterator().next());
+        } else {
+            payload = String.join("\n", instanceId, EVICT_ALL, cacheName, String.join("\n", keys));
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.publish(getInvalidationChannel().getBytes(StandardCharsets.UTF_8),
+                    payload.getBytes(StandardCharsets.UTF_8));
+        } catch (DataAccessException e) {
+            // the other instances fall back to the local ttl for this entry
+            logger.warn("Failed to publish invalidation for cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private RedisCacheConfiguration configure(RedisCacheConfiguration configuration, TwoLevelCacheProperties.Spec spec) {
+        if (spec.getTtl() != null) {
+            configuration = configuration.entryTtl(spec.getTtl());
+        }
+        if (spec.getValueType() != null) {
+            configuration = configuration.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                    new CompactRedisSerializer<>(spec.getValueType(), properties.getCompressionThreshold())));
+        }
+        return configuration;
+    }
+}
@@ -0,0 +1,45 @@
+package com.akerumort.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+public class TwoLevelCacheProperties {
+    private String invalidationChannel = "bookletter:cache:invalidation";
+    // encoded values of at least this many bytes are lz4 compressed
+    private int compressionThreshold = 512;
+    // weight of the probabilistic early refresh of loaded entries, 0 refreshes only on expiry
+    private double earlyRefreshBeta = 1.0;
+    private Spec defaults = new Spec(null, Duration.ofSeconds(30), 1000L, null);
+    private Map<String, Spec> caches = new HashMap<>();
+
+    // settings of one cache with anything it leaves unset taken from the defaults
+    public Spec specFor(String cacheName) {
+        Spec spec = caches.getOrDefault(cacheName, new Spec());
+        return new Spec(
+                spec.getTtl() != null ? spec.getTtl() : defaults.getTtl(),
+                spec.getLocalTtl() != null ? spec.getLocalTtl() : defaults.getLocalTtl(),
+                spec.getLocalMaxSize() != null ? spec.getLocalMaxSize() : defaults.getLocalMaxSize(),
+                spec.getValueType());
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Spec {
+        // redis entry ttl, null keeps the ttl of the redis cache configuration
+        private Duration ttl;
+        private Duration localTtl;
+        private Long localMaxSize;
+        // type of every value in the cache, enables the compact serializer instead of the configured one
+        private Class<?> valueType;
+    }
+}
@@ -0,0 +1,83 @@
+package com.akerumort.common.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Not a bean on purpose, JwtSecurityAutoConfiguration adds it to the security chain so it does not also run as a servlet filter.
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    // authorities of the subject when the token was issued, they stay in effect until it expires
+    public static final String ROLES_CLAIM = "roles";
+
+    private final JwtVerifier jwtVerifier;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final JwtAuthenticationResolver authenticationResolver;
+
+    public JwtAuthenticationFilter(JwtVerifier jwtVerifier, TokenRevocationStore tokenRevocationStore,
+                                   JwtAuthenticationResolver authenticationResolver) {
+        this.jwtVerifier = jwtVerifier;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.authenticationResolver = authenticationResolver;
+    }
+
+    // authenticates the token subject with the roles it was issued with, for services that do not own the users
+    public JwtAuthenticationFilter(JwtVerifier jwtVerifier, TokenRevocationStore tokenRevocationStore) {
+        this(jwtVerifier, tokenRevocationStore,
+                claims -> new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authorities(claims)));
+    }
+
+    private static List<SimpleGrantedAuthority> authorities(Claims claims) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (roles == null) {
+            return List.of();
+        }
+        return roles.stream().map(role -> new SimpleGrantedAuthority(role.toString())).toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            try {
+                // parsing rejects bad signatures and expired tokens, repeated tokens come from the cache
+                Claims claims = jwtVerifier.verify(token);
+                if (tokenRevocationStore.isRevoked(claims, token)) {
+                    handleException(response, "Token has been invalidated.");
+                    return;
+                }
+                SecurityContextHolder.getContext().setAuthentication(authenticationResolver.resolve(claims));
+            } catch (UsernameNotFoundException | JwtValidationException ex) {
+                handleException(response, ex.getMessage());
+                return;
+            } catch (AuthenticationException ex) {
+                handleException(response, "Authentication error: " + ex.getMessage());
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void handleException(HttpServletResponse response, String message) throws IOException {
+        if (!response.isCommitted()) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\": \"" + message + "\"}");
+        }
+    }
+}
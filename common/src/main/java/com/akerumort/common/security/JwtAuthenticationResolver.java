@@ -0,0 +1,12 @@
+package com.akerumort.common.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.Authentication;
+
+// Turns verified claims into the authentication of the request. A service that owns the users declares one
+// to load the principal, the others authenticate the token subject from the claims alone.
+@FunctionalInterface
+public interface JwtAuthenticationResolver {
+
+    Authentication resolve(Claims claims);
+}
@@ -0,0 +1,82 @@
+package com.akerumort.common.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// Signing keys by kid. Tokens are signed with the active key and verified with whichever key their kid names,
+// so a new key can be rolled out to all replicas before it becomes active and an old one kept until its tokens expire.
+public class JwtKeyring {
+
+    private static final Logger logger = LogManager.getLogger(JwtKeyring.class);
+    private static final String GENERATED_KEY_ID = "generated";
+
+    private final String activeKeyId;
+    private final Map<String, SecretKey> keys;
+
+    // a null active kid gives a verify-only keyring, as used by the services that never issue tokens
+    public JwtKeyring(String activeKeyId, Map<String, SecretKey> keys) {
+        if (activeKeyId != null && !keys.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("No signing key configured for active kid " + activeKeyId);
+        }
+        this.activeKeyId = activeKeyId;
+        this.keys = Map.copyOf(keys);
+    }
+
+    public static JwtKeyring load(JwtProperties properties) {
+        Map<String, String> secrets = new HashMap<>(properties.getSecrets());
+        if (properties.getFile() != null && !properties.getFile().isBlank()) {
+            Properties fileSecrets = new Properties();
+            try (Reader reader = Files.newBufferedReader(Path.of(properties.getFile()))) {
+                fileSecrets.load(reader);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read JWT key file " + properties.getFile(), e);
+            }
+            fileSecrets.stringPropertyNames().forEach(kid -> secrets.put(kid, fileSecrets.getProperty(kid).trim()));
+        }
+
+        Map<String, SecretKey> keys = new HashMap<>();
+        secrets.forEach((kid, secret) -> keys.put(kid, Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret))));
+        if (properties.getActive() == null || properties.getActive().isBlank()) {
+            if (!keys.isEmpty()) {
+                logger.info("Loaded JWT verification keys {}", keys.keySet());
+                return new JwtKeyring(null, keys);
+            }
+            // a verifier with a key of its own would reject every token, so only the issuer may opt into this
+            if (!properties.isGenerateIfMissing()) {
+                throw new IllegalStateException("No JWT keys configured, set jwt.keys.file or jwt.keys.secrets");
+            }
+            logger.warn("No JWT signing key configured, using a random key. Tokens will not survive a restart.");
+            return new JwtKeyring(GENERATED_KEY_ID, Map.of(GENERATED_KEY_ID, Keys.secretKeyFor(SignatureAlgorithm.HS256)));
+        }
+        logger.info("Loaded JWT keys {}, signing with {}", keys.keySet(), properties.getActive());
+        return new JwtKeyring(properties.getActive(), keys);
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public SecretKey getActiveKey() {
+        if (activeKeyId == null) {
+            throw new IllegalStateException("No active JWT signing key, this keyring only verifies tokens");
+        }
+        return keys.get(activeKeyId);
+    }
+
+    // null for unknown or retired kids
+    public SecretKey getKey(String keyId) {
+        return keyId == null ? null : keys.get(keyId);
+    }
+}
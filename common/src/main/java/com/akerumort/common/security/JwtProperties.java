@@ -0,0 +1,20 @@
+package com.akerumort.common.security;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+public class JwtProperties {
+    // kid of the key new tokens are signed with
+    private String active;
+    // base64 key material by kid, every key listed here is accepted for verification
+    private Map<String, String> secrets = new HashMap<>();
+    // optional properties file with more kid=base64 entries, e.g. a mounted secret
+    private String file;
+    // sign with a random key when none is configured, for a single local issuer only
+    private boolean generateIfMissing;
+}
@@ -0,0 +1,90 @@
+package com.akerumort.common.security;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+// Tokens issued by user-service are verified by every service with the shared keys and the shared revocation list,
+// so authenticating a request never calls user-service. Services only declare their request rules,
+// see RequestAuthorizationCustomizer, and user-service its own JwtAuthenticationResolver.
+@AutoConfiguration(after = RedisAutoConfiguration.class, before = SecurityAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class JwtSecurityAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConfigurationProperties("jwt.keys")
+    public JwtProperties jwtProperties() {
+        return new JwtProperties();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtKeyring jwtKeyring(JwtProperties jwtProperties) {
+        return JwtKeyring.load(jwtProperties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtVerifier jwtVerifier(JwtKeyring jwtKeyring) {
+        return new JwtVerifier(jwtKeyring);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenRevocationStore tokenRevocationStore(StringRedisTemplate stringRedisTemplate) {
+        return new TokenRevocationStore(stringRedisTemplate);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "tokenRevocationListenerContainer")
+    public RedisMessageListenerContainer tokenRevocationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                          TokenRevocationStore tokenRevocationStore) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(tokenRevocationStore, new ChannelTopic(TokenRevocationStore.REVOCATION_CHANNEL));
+        return container;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SecurityFilterChain.class)
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtVerifier jwtVerifier,
+                                                   TokenRevocationStore tokenRevocationStore,
+                                                   ObjectProvider<JwtAuthenticationResolver> authenticationResolver,
+                                                   ObjectProvider<RequestAuthorizationCustomizer> customizers)
+            throws Exception {
+        JwtAuthenticationResolver resolver = authenticationResolver.getIfAvailable();
+        JwtAuthenticationFilter jwtAuthenticationFilter = resolver == null
+                ? new JwtAuthenticationFilter(jwtVerifier, tokenRevocationStore)
+                : new JwtAuthenticationFilter(jwtVerifier, tokenRevocationStore, resolver);
+        http
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(requests -> {
+                    requests.requestMatchers("/swagger-ui.html", "/v3/api-docs/**", "/swagger-ui/**").permitAll();
+                    customizers.orderedStream().forEach(customizer -> customizer.customize(requests));
+                    requests.anyRequest().authenticated();
+                })
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+
+        return http.build();
+    }
+}
@@ -1,4 +1,4 @@
-package com.akerumort.userservice.exceptions;
+package com.akerumort.common.security;
 
 
 public class JwtValidationException extends RuntimeException {
@@ -0,0 +1,108 @@
+package com.akerumort.common.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Verifies tokens against the keyring without calling the issuing service.
+public class JwtVerifier {
+
+    private static final Logger logger = LogManager.getLogger(JwtVerifier.class);
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
+    // claims of tokens whose signature was already checked, keyed by token hash and dropped at the token's exp
+    private final Cache<String, Claims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+            .expireAfter(new Expiry<String, Claims>() {
+                @Override
+                public long expireAfterCreate(String hash, Claims claims, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(claims.getExpiration().getTime() - System.currentTimeMillis());
+                }
+
+                @Override
+                public long expireAfterUpdate(String hash, Claims claims, long currentTime, long currentDuration) {
+                    return expireAfterCreate(hash, claims, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String hash, Claims claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    private final JwtParser parser;
+
+    public JwtVerifier(JwtKeyring keyring) {
+        // the kid header picks the verification key, tokens with unknown kids fail like bad signatures
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyring.getKey(header.getKeyId());
+                        if (key == null) {
+                            throw new SignatureException("Unknown signing key id " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    public Claims verify(String token) {
+        String hash = hash(token);
+        Claims claims = verifiedTokens.getIfPresent(hash);
+        if (claims == null) {
+            claims = parseClaims(token);
+            verifiedTokens.put(hash, claims);
+        }
+        return claims;
+    }
+
+    private Claims parseClaims(String token) {
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (SignatureException e) {
+            logger.error("JWT signature does not match: {}", e.getMessage());
+            throw new JwtValidationException("JWT signature does not match locally computed signature.");
+        } catch (ExpiredJwtException e) {
+            logger.error("JWT token has expired: {}", e.getMessage());
+            throw new JwtValidationException("JWT token has expired.");
+        } catch (Exception e) {
+            logger.error("JWT extraction failed: {}", e.getMessage());
+            throw new JwtValidationException("JWT validity cannot be asserted and should not be trusted.");
+        }
+        // a token without exp would never expire, and the verified token cache is keyed on it
+        if (claims.getExpiration() == null) {
+            logger.error("JWT token has no expiration");
+            throw new JwtValidationException("JWT token has no expiration.");
+        }
+        return claims;
+    }
+
+    public static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.akerumort.common.security;
+
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AuthorizeHttpRequestsConfigurer;
+
+// The request rules of one service. They are applied after the swagger endpoints are opened and before
+// every other request is required to be authenticated.
+@FunctionalInterface
+public interface RequestAuthorizationCustomizer {
+
+    void customize(AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizationManagerRequestMatcherRegistry requests);
+}
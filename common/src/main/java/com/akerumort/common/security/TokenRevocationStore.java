@@ -0,0 +1,97 @@
+package com.akerumort.common.security;
+
+import io.jsonwebtoken.Claims;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Revoked token ids shared by every service through redis, checked locally against a bloom filter first.
+public class TokenRevocationStore implements MessageListener {
+
+    private static final Logger logger = LogManager.getLogger(TokenRevocationStore.class);
+    public static final String REVOCATION_CHANNEL = "jwt:revocations";
+    private static final String KEY_PREFIX = "jwt:revoked:";
+    private static final int EXPECTED_REVOCATIONS = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final StringRedisTemplate redisTemplate;
+
+    // every id revoked on any instance, so most tokens are known not to be revoked without asking redis
+    private volatile BloomFilter revokedIds = new BloomFilter(EXPECTED_REVOCATIONS, FALSE_POSITIVE_RATE);
+    // while a rebuild scans redis, new revocations are added here too so the swap does not lose them
+    private volatile BloomFilter rebuilding;
+    // until the first rebuild succeeds the filter is incomplete and every check goes to redis
+    private volatile boolean filterLoaded;
+
+    public TokenRevocationStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void revoke(Claims claims, String token) {
+        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+            return;
+        }
+        String id = revocationId(claims, token);
+        markRevoked(id);
+        // the key lives exactly as long as the token could still be used
+        redisTemplate.opsForValue().set(KEY_PREFIX + id, "1", Duration.ofMillis(remainingMillis));
+        redisTemplate.convertAndSend(REVOCATION_CHANNEL, id);
+    }
+
+    public boolean isRevoked(Claims claims, String token) {
+        String id = revocationId(claims, token);
+        if (filterLoaded && !revokedIds.mightContain(id)) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + id));
+        } catch (DataAccessException e) {
+            logger.warn("Cannot check token revocation, rejecting the token: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        markRevoked(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    // revoked ids stay in a bloom filter after their key expires, so it is rebuilt from the live keys
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval-ms:600000}")
+    public void rebuildFilter() {
+        BloomFilter next = new BloomFilter(EXPECTED_REVOCATIONS, FALSE_POSITIVE_RATE);
+        rebuilding = next;
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build())) {
+            keys.forEachRemaining(key -> next.add(key.substring(KEY_PREFIX.length())));
+            revokedIds = next;
+            filterLoaded = true;
+            logger.debug("Rebuilt token revocation filter");
+        } catch (DataAccessException e) {
+            logger.warn("Failed to rebuild token revocation filter: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private void markRevoked(String id) {
+        revokedIds.add(id);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.add(id);
+        }
+    }
+
+    private static String revocationId(Claims claims, String token) {
+        return claims.getId() != null ? claims.getId() : JwtVerifier.hash(token);
+    }
+}
@@ -0,0 +1,81 @@
+package com.akerumort.common.web;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.StringJoiner;
+
+// Counts committed writes per table in redis. The count is the weak ETag of the table's listings,
+// so a listing is revalidated without a database query and every instance agrees on the tag.
+public class ChangeCounter {
+
+    private static final Logger logger = LogManager.getLogger(ChangeCounter.class);
+    private static final String KEY_PREFIX = "changes:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String namespace;
+
+    public ChangeCounter(StringRedisTemplate redisTemplate, String namespace) {
+        this.redisTemplate = redisTemplate;
+        this.namespace = namespace;
+    }
+
+    // counting before commit would let a concurrent listing tag the old rows with the new count
+    public void recordChange(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(table);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment(table);
+            }
+        });
+    }
+
+    // a listing built from several tables is tagged with all their counts.
+    // null when redis cannot be asked, the listing then goes out without an ETag
+    public String weakETag(String... tables) {
+        StringJoiner counts = new StringJoiner("-");
+        for (String table : tables) {
+            String key = key(table);
+            try {
+                String count = redisTemplate.opsForValue().get(key);
+                if (count == null) {
+                    seed(key);
+                    count = redisTemplate.opsForValue().get(key);
+                }
+                counts.add(count);
+            } catch (DataAccessException e) {
+                logger.warn("Cannot read change count of {}: {}", table, e.getMessage());
+                return null;
+            }
+        }
+        return ConditionalGet.weakETag(counts);
+    }
+
+    private void increment(String table) {
+        String key = key(table);
+        try {
+            seed(key);
+            redisTemplate.opsForValue().increment(key);
+        } catch (DataAccessException e) {
+            logger.error("Cannot count change of {}, its listings may revalidate stale copies: {}",
+                    table, e.getMessage());
+        }
+    }
+
+    // a lost counter restarts above every count handed out before, so an old tag never matches again
+    private void seed(String key) {
+        redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis() * 1000));
+    }
+
+    private String key(String table) {
+        return KEY_PREFIX + namespace + ":" + table;
+    }
+}
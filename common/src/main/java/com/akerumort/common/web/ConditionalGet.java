@@ -0,0 +1,38 @@
+package com.akerumort.common.web;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// Responses of GET endpoints that clients and the CDN revalidate with If-None-Match. A 200 carrying an ETag
+// is turned into a 304 by spring when the tag matches, so only endpoints that can validate without loading
+// the body check the request themselves.
+public final class ConditionalGet {
+
+    // copies may be stored but are revalidated before each use
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private ConditionalGet() {
+    }
+
+    public static String strongETag(Object version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    public static String weakETag(Object version) {
+        return version == null ? null : "W/\"" + version + "\"";
+    }
+
+    public static <T> ResponseEntity<T> ok(String eTag, T body) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CACHE_CONTROL);
+        if (eTag != null) {
+            builder.eTag(eTag);
+        }
+        return builder.body(body);
+    }
+
+    // for a request that WebRequest.checkNotModified matched, which has already set the validators
+    public static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CACHE_CONTROL).build();
+    }
+}
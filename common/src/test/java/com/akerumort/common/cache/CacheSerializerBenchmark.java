@@ -0,0 +1,111 @@
+package com.akerumort.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Getter;
+import lombok.Setter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Compares the cache value serializers on a book-sized and a post-sized value.
+// Bytes per entry are printed once per trial, run with: java ... CacheSerializerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"book", "post"})
+    private String value;
+
+    @Param({"json", "jdk", "compact"})
+    private String serializerName;
+
+    private RedisSerializer<Object> serializer;
+    private Object entry;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        entry = "book".equals(value) ? book() : post();
+        serializer = switch (serializerName) {
+            case "json" -> new GenericJackson2JsonRedisSerializer(
+                    new ObjectMapper().registerModule(new JavaTimeModule())
+                            .activateDefaultTyping(new ObjectMapper().getPolymorphicTypeValidator(),
+                                    ObjectMapper.DefaultTyping.EVERYTHING));
+            case "jdk" -> new JdkSerializationRedisSerializer();
+            default -> (RedisSerializer<Object>) (RedisSerializer<?>) new CompactRedisSerializer<>(entry.getClass(), 512);
+        };
+        bytes = serializer.serialize(entry);
+        System.out.printf("%n%s/%s: %d bytes per entry%n", value, serializerName, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(entry);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CacheSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static Book book() {
+        Book book = new Book();
+        book.setId(1042L);
+        book.setTitle("Java. The Complete Reference");
+        book.setGenre("Programming");
+        book.setPublicationYear(2023);
+        book.setAuthorIds(Set.of(12L, 57L));
+        return book;
+    }
+
+    private static Post post() {
+        Post post = new Post();
+        post.setId(90211L);
+        post.setUserId(311L);
+        post.setTitle("Notes on the new edition");
+        post.setContent("The new edition reworks most chapters on concurrency and adds a part on records. ".repeat(12));
+        post.setCreatedAt(LocalDateTime.of(2024, 10, 3, 12, 0));
+        post.setUpdatedAt(LocalDateTime.of(2024, 10, 4, 9, 30));
+        return post;
+    }
+
+    @Getter
+    @Setter
+    public static class Book implements Serializable {
+        private Long id;
+        private String title;
+        private String genre;
+        private Integer publicationYear;
+        private Set<Long> authorIds;
+    }
+
+    @Getter
+    @Setter
+    public static class Post implements Serializable {
+        private Long id;
+        private Long userId;
+        private String title;
+        private String content;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+    }
+}
@@ -0,0 +1,64 @@
+package com.akerumort.common.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer<Entry> serializer = new CompactRedisSerializer<>(Entry.class, 64);
+
+    @Test
+    void testRoundTripsSmallValueUncompressed() {
+        Entry entry = entry("short");
+
+        byte[] bytes = serializer.serialize(entry);
+        Entry result = serializer.deserialize(bytes);
+
+        assertEquals(1, bytes[0]);
+        assertEquals(entry.getId(), result.getId());
+        assertEquals(entry.getContent(), result.getContent());
+        assertEquals(entry.getCreatedAt(), result.getCreatedAt());
+    }
+
+    @Test
+    void testCompressesValuesAboveThreshold() {
+        Entry entry = entry("lorem ipsum dolor sit amet ".repeat(40));
+
+        byte[] bytes = serializer.serialize(entry);
+
+        assertEquals(2, bytes[0]);
+        assertTrue(bytes.length < entry.getContent().length());
+        assertEquals(entry.getContent(), serializer.deserialize(bytes).getContent());
+    }
+
+    @Test
+    void testReadsValuesOfOtherSerializersAsMissing() {
+        byte[] bytes = new JdkSerializationRedisSerializer().serialize(entry("old"));
+
+        assertNull(serializer.deserialize(bytes));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    private static Entry entry(String content) {
+        Entry entry = new Entry();
+        entry.setId(42L);
+        entry.setContent(content);
+        entry.setCreatedAt(LocalDateTime.of(2024, 10, 3, 12, 0));
+        return entry;
+    }
+
+    @Getter
+    @Setter
+    public static class Entry implements Serializable {
+        private Long id;
+        private String content;
+        private LocalDateTime createdAt;
+    }
+}
@@ -0,0 +1,78 @@
+package com.akerumort.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TwoLevelCacheManagerTest {
+
+    @Mock
+    private RedisConnectionFactory connectionFactory;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TwoLevelCacheManager(connectionFactory, RedisCacheConfiguration.defaultCacheConfig(),
+                new TwoLevelCacheProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testEvictAllSendsOneDelAndOneMessage() {
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache("book");
+
+        cache.evictAll(List.of(1L, 2L));
+
+        ArgumentCaptor<byte[][]> keys = ArgumentCaptor.forClass(byte[][].class);
+        verify(keyCommands, times(1)).del(keys.capture());
+        assertEquals(List.of("book::1", "book::2"), Arrays.stream(keys.getValue())
+                .map(key -> new String(key, StandardCharsets.UTF_8)).toList());
+        ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        verify(connection, times(1)).publish(any(byte[].class), payload.capture());
+        assertTrue(new String(payload.getValue(), StandardCharsets.UTF_8).endsWith("\nevictAll\nbook\n1\n2"));
+    }
+
+    @Test
+    void testEvictAllMessageDropsEveryListedKey() {
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache("book");
+        @SuppressWarnings("unchecked")
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local =
+                (com.github.benmanes.caffeine.cache.Cache<String, Object>) cache.getNativeCache();
+        local.put("1", "one");
+        local.put("2", "two");
+        local.put("3", "three");
+
+        cacheManager.onMessage(new DefaultMessage(new byte[0],
+                "other\nevictAll\nbook\n1\n2".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertNull(local.getIfPresent("1"));
+        assertNull(local.getIfPresent("2"));
+        assertEquals("three", local.getIfPresent("3"));
+    }
+}
@@ -0,0 +1,189 @@
+package com.akerumort.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TwoLevelCacheTest {
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    @Mock
+    private RemoteCacheEvictor remoteEvictor;
+
+    private Cache remote;
+    private MeterRegistry meterRegistry;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = spy(new ConcurrentMapCache("book"));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = cache(Duration.ofMinutes(5), 1.0);
+    }
+
+    @Test
+    void testGetServesRepeatedReadsLocally() {
+        remote.put(1L, "value");
+
+        assertEquals("value", cache.get(1L).get());
+        assertEquals("value", cache.get(1L).get());
+
+        verify(remote, times(1)).get(1L);
+        assertEquals(1, count("local", "hit"));
+        assertEquals(1, count("redis", "hit"));
+    }
+
+    @Test
+    void testGetCachesNullValuesLocally() {
+        assertNull(cache.get(1L, () -> null));
+        assertNull(cache.get(1L, () -> "loaded"));
+
+        assertNotNull(cache.get(1L));
+        assertEquals(1, count("redis", "miss"));
+    }
+
+    @Test
+    void testEvictRemovesBothTiersAndPublishes() {
+        cache.put(1L, "value");
+        cache.evict(1L);
+
+        assertNull(cache.get(1L));
+        verify(invalidationPublisher, times(2)).publish("book", "1");
+    }
+
+    @Test
+    void testEvictAllDeletesAndPublishesOnce() {
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.put(3L, "three");
+
+        cache.evictAll(List.of(1L, 2L, 2L));
+
+        verify(remoteEvictor, times(1)).evictAll("book", List.of("1", "2"));
+        verify(invalidationPublisher, times(1)).publishAll("book", List.of("1", "2"));
+        verify(remote, never()).evict(any());
+        // only the evicted keys are read through to redis again
+        cache.get(1L);
+        cache.get(3L);
+        assertEquals(1, count("local", "miss"));
+        assertEquals(1, count("local", "hit"));
+    }
+
+    @Test
+    void testRemoteInvalidationDropsOnlyLocalCopy() {
+        cache.put(1L, "value");
+        remote.put(1L, "updated");
+
+        cache.evictLocal(List.of("1"));
+
+        assertEquals("updated", cache.get(1L).get());
+    }
+
+    @Test
+    void testClearPublishesWholeCacheInvalidation() {
+        cache.put(1L, "value");
+        cache.clear();
+
+        assertNull(cache.get(1L));
+        verify(invalidationPublisher, times(1)).publish("book", null);
+    }
+
+    @Test
+    void testConcurrentMissesRunOneLoader() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.get(1L, () -> {
+                loads.incrementAndGet();
+                loading.await(1, TimeUnit.SECONDS);
+                return "value";
+            })));
+        }
+        Thread.sleep(200);
+        loading.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testLoaderFailureReachesCaller() {
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals("value", cache.get(1L, () -> "value"));
+    }
+
+    @Test
+    void testEntriesCloseToExpiryAreRefreshedEarly() throws Exception {
+        cache = cache(Duration.ofMillis(50), 1_000_000.0);
+        cache.get(1L, () -> {
+            Thread.sleep(5);
+            return "old";
+        });
+
+        assertEquals("new", cache.get(1L, () -> "new"));
+        assertEquals("new", remote.get(1L).get());
+    }
+
+    @Test
+    void testFailedEarlyRefreshServesTheCurrentValue() throws Exception {
+        cache = cache(Duration.ofMillis(50), 1_000_000.0);
+        cache.get(1L, () -> {
+            Thread.sleep(5);
+            return "old";
+        });
+
+        assertEquals("old", cache.get(1L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals("old", remote.get(1L).get());
+        assertEquals(1, meterRegistry.get("bookletter.cache.early.refreshes.failed").counter().count());
+    }
+
+    @Test
+    void testEarlyRefreshCanBeDisabled() {
+        cache = cache(Duration.ofMillis(50), 0);
+        cache.get(1L, () -> "old");
+
+        assertEquals("old", cache.get(1L, () -> "new"));
+    }
+
+    private TwoLevelCache cache(Duration ttl, double earlyRefreshBeta) {
+        return new TwoLevelCache("book", Caffeine.newBuilder().maximumSize(10).build(), remote,
+                invalidationPublisher, remoteEvictor, meterRegistry, ttl, earlyRefreshBeta);
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.get("bookletter.cache.gets").tag("tier", tier).tag("result", result).counter().count();
+    }
+}
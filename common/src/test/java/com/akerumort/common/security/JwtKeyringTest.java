@@ -0,0 +1,41 @@
+package com.akerumort.common.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtKeyringTest {
+
+    @Test
+    void testVerifyOnlyKeyringWithoutKeysFails() {
+        assertThrows(IllegalStateException.class, () -> JwtKeyring.load(new JwtProperties()));
+    }
+
+    @Test
+    void testGeneratesSigningKeyOnlyWhenAllowed() {
+        JwtProperties properties = new JwtProperties();
+        properties.setGenerateIfMissing(true);
+
+        JwtKeyring keyring = JwtKeyring.load(properties);
+
+        assertNotNull(keyring.getActiveKey());
+    }
+
+    @Test
+    void testLoadsVerifyOnlyKeyring() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecrets(Map.of("k1", Base64.getEncoder().encodeToString(
+                Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded())));
+
+        JwtKeyring keyring = JwtKeyring.load(properties);
+
+        assertNull(keyring.getActiveKeyId());
+        assertNotNull(keyring.getKey("k1"));
+        assertThrows(IllegalStateException.class, keyring::getActiveKey);
+    }
+}
@@ -0,0 +1,41 @@
+package com.akerumort.common.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtVerifierTest {
+
+    private final SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final JwtVerifier verifier = new JwtVerifier(new JwtKeyring(null, Map.of("k1", key)));
+
+    @Test
+    void testVerifiesTokenSignedWithAKnownKid() {
+        String token = Jwts.builder().setHeaderParam("kid", "k1").setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000)).signWith(key).compact();
+
+        assertEquals("alice", verifier.verify(token).getSubject());
+    }
+
+    @Test
+    void testRejectsTokenWithoutExpiration() {
+        String token = Jwts.builder().setHeaderParam("kid", "k1").setSubject("alice").signWith(key).compact();
+
+        assertThrows(JwtValidationException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void testRejectsTokenWithUnknownKid() {
+        String token = Jwts.builder().setHeaderParam("kid", "k2").setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000)).signWith(key).compact();
+
+        assertThrows(JwtValidationException.class, () -> verifier.verify(token));
+    }
+}
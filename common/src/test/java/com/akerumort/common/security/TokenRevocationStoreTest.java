@@ -0,0 +1,87 @@
+package com.akerumort.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationStoreTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private Cursor<String> cursor;
+
+    @InjectMocks
+    private TokenRevocationStore tokenRevocationStore;
+
+    private Claims claims;
+
+    @BeforeEach
+    void setUp() {
+        claims = new DefaultClaims();
+        claims.setId("token-1");
+        claims.setExpiration(new Date(System.currentTimeMillis() + 60_000));
+    }
+
+    @Test
+    void testRevokeStoresIdUntilTokenExpires() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        tokenRevocationStore.revoke(claims, "token");
+
+        verify(valueOperations, times(1)).set(eq("jwt:revoked:token-1"), eq("1"), any(Duration.class));
+        verify(redisTemplate, times(1)).convertAndSend(TokenRevocationStore.REVOCATION_CHANNEL, "token-1");
+    }
+
+    @Test
+    void testUnknownTokenIsCheckedLocallyOnceFilterIsLoaded() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        tokenRevocationStore.rebuildFilter();
+
+        assertFalse(tokenRevocationStore.isRevoked(claims, "token"));
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    void testRevokedTokenIsConfirmedInRedis() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(redisTemplate.hasKey("jwt:revoked:token-1")).thenReturn(true);
+        tokenRevocationStore.rebuildFilter();
+
+        tokenRevocationStore.onMessage(new DefaultMessage(
+                TokenRevocationStore.REVOCATION_CHANNEL.getBytes(), "token-1".getBytes()), null);
+
+        assertTrue(tokenRevocationStore.isRevoked(claims, "token"));
+    }
+
+    @Test
+    void testTokensAreRejectedWhenRedisIsUnavailableBeforeFilterIsLoaded() {
+        when(redisTemplate.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertTrue(tokenRevocationStore.isRevoked(claims, "token"));
+    }
+}
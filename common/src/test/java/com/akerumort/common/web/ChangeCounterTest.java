@@ -0,0 +1,84 @@
+package com.akerumort.common.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeCounterTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private ChangeCounter changeCounter;
+
+    @BeforeEach
+    void setUp() {
+        changeCounter = new ChangeCounter(redisTemplate, "library");
+    }
+
+    @Test
+    void testWeakETagIsTheCurrentCount() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("changes:library:book")).thenReturn("42");
+
+        assertEquals("W/\"42\"", changeCounter.weakETag("book"));
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString());
+    }
+
+    @Test
+    void testWeakETagOfSeveralTablesJoinsTheirCounts() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("changes:library:book")).thenReturn("42");
+        when(valueOperations.get("changes:library:author")).thenReturn("7");
+
+        assertEquals("W/\"42-7\"", changeCounter.weakETag("book", "author"));
+    }
+
+    @Test
+    void testMissingCounterIsSeededAboveEarlierCounts() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("changes:library:book")).thenReturn(null, "1700000000000000");
+
+        assertEquals("W/\"1700000000000000\"", changeCounter.weakETag("book"));
+        verify(valueOperations).setIfAbsent(eq("changes:library:book"), anyString());
+    }
+
+    @Test
+    void testWeakETagIsOmittedWhenRedisIsUnavailable() {
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("connection lost"));
+
+        assertNull(changeCounter.weakETag("book"));
+    }
+
+    @Test
+    void testChangeIsCountedAfterCommit() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            changeCounter.recordChange("author");
+            verifyNoInteractions(redisTemplate);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(valueOperations).increment("changes:library:author");
+    }
+}
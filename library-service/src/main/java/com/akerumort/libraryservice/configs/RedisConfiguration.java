@@ -1,16 +1,22 @@
 package com.akerumort.libraryservice.configs;
 
+import com.akerumort.common.cache.TwoLevelCacheManager;
+import com.akerumort.common.cache.TwoLevelCacheProperties;
+import com.akerumort.common.web.ChangeCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.CacheManager;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
 
 import java.time.Duration;
 
@@ -33,11 +39,32 @@ public class RedisConfiguration {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    @ConfigurationProperties("bookletter.cache")
+    public TwoLevelCacheProperties twoLevelCacheProperties() {
+        return new TwoLevelCacheProperties();
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                             TwoLevelCacheProperties twoLevelCacheProperties,
+                                             MeterRegistry meterRegistry) {
         RedisCacheConfiguration redisCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(5));
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(redisCacheConfiguration)
-                .build();
+        return new TwoLevelCacheManager(redisConnectionFactory, redisCacheConfiguration,
+                twoLevelCacheProperties, meterRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(cacheManager.getInvalidationChannel()));
+        return container;
+    }
+
+    @Bean
+    public ChangeCounter changeCounter(StringRedisTemplate stringRedisTemplate) {
+        return new ChangeCounter(stringRedisTemplate, "library");
     }
 }
@@ -0,0 +1,22 @@
+package com.akerumort.libraryservice.configs;
+
+import com.akerumort.common.security.RequestAuthorizationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+
+// Tokens are verified by the shared chain from common, see JwtSecurityAutoConfiguration. Reads are public,
+// every other request needs a token issued by user-service.
+@Configuration
+public class SecurityConfig {
+
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    // wiping a whole collection is an admin task, any user may still delete a single book or author
+    @Bean
+    public RequestAuthorizationCustomizer requestAuthorizationCustomizer() {
+        return requests -> requests
+                .requestMatchers(HttpMethod.GET, "/**").permitAll()
+                .requestMatchers(HttpMethod.DELETE, "/books", "/authors").hasAuthority(ADMIN_AUTHORITY);
+    }
+}
@@ -1,6 +1,10 @@
 package com.akerumort.libraryservice.controllers;
 
+import com.akerumort.common.web.ConditionalGet;
 import com.akerumort.libraryservice.dto.AuthorDTO;
+import com.akerumort.libraryservice.dto.BatchItemResultDTO;
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import com.akerumort.libraryservice.dto.PageDTO;
 import com.akerumort.libraryservice.dto.BookIdsDTO;
 import com.akerumort.libraryservice.services.AuthorService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,10 +13,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Set;
 
@@ -28,23 +36,56 @@ public class AuthorController {
     @Operation(summary = "Get all authors")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully received the list of authors"),
+            @ApiResponse(responseCode = "304", description = "No author changed since the given ETag"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<List<AuthorDTO>> getAllAuthors() {
+    public ResponseEntity<List<AuthorDTO>> getAllAuthors(WebRequest request) {
+        String eTag = authorService.getAuthorsETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
         List<AuthorDTO> authors = authorService.getAllAuthors();
-        return ResponseEntity.ok(authors);
+        return ConditionalGet.ok(eTag, authors);
+    }
+
+    @GetMapping(params = "page")
+    @Operation(summary = "Get a page of authors")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully received the page of authors"),
+            @ApiResponse(responseCode = "304", description = "No author changed since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid sort property"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<PageDTO<AuthorDTO>> getAuthorsPage(@PageableDefault(size = 20, sort = "id") Pageable pageable,
+                                                             WebRequest request) {
+        String eTag = authorService.getAuthorsETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
+        PageDTO<AuthorDTO> authors = authorService.getAuthorsPage(pageable);
+        return ConditionalGet.ok(eTag, authors);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get an author by ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully received the author"),
+            @ApiResponse(responseCode = "304", description = "Author did not change since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Author not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<AuthorDTO> getAuthorById(@PathVariable Long id) {
+    public ResponseEntity<AuthorDTO> getAuthorById(@PathVariable Long id, WebRequest request) {
+        // see BookController.getBookById
+        String eTag = authorService.getAuthorETag(id);
+        if (eTag == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
         AuthorDTO author = authorService.getAuthorById(id);
-        return author != null ? ResponseEntity.ok(author) : ResponseEntity.notFound().build();
+        return author != null ? ConditionalGet.ok(ConditionalGet.strongETag(author.getVersion()), author)
+                : ResponseEntity.notFound().build();
     }
 
     @PostMapping
@@ -59,6 +100,28 @@ public class AuthorController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdAuthor);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create several authors at once")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Processed the batch, see the status of each item"),
+            @ApiResponse(responseCode = "400", description = "Batch is too large"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<BatchItemResultDTO<AuthorDTO>>> createAuthors(@RequestBody List<AuthorDTO> authorDTOs) {
+        return ResponseEntity.ok(authorService.createAuthors(authorDTOs));
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Update several authors at once")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Processed the batch, see the status of each item"),
+            @ApiResponse(responseCode = "400", description = "Batch is too large"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<BatchItemResultDTO<AuthorDTO>>> updateAuthors(@RequestBody List<AuthorDTO> authorDTOs) {
+        return ResponseEntity.ok(authorService.updateAuthors(authorDTOs));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an existing author")
     @ApiResponses({
@@ -86,14 +149,15 @@ public class AuthorController {
     }
 
     @DeleteMapping
-    @Operation(summary = "Delete all authors")
+    @Operation(summary = "Delete all authors", description = "Starts a background job, its progress is at /delete-jobs/{id}")
     @ApiResponses({
-            @ApiResponse(responseCode = "204", description = "Successfully deleted all authors"),
+            @ApiResponse(responseCode = "202", description = "Started the job, or returned the one already running"),
+            @ApiResponse(responseCode = "403", description = "Only admins can delete all authors"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Void> deleteAllAuthors() {
-        authorService.deleteAllAuthors();
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<DeleteJobDTO> deleteAllAuthors() {
+        DeleteJobDTO job = authorService.deleteAllAuthors();
+        return ResponseEntity.accepted().location(URI.create("/delete-jobs/" + job.getId())).body(job);
     }
 
     @PostMapping("/{id}/add-books")
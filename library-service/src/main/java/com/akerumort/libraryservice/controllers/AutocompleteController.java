@@ -0,0 +1,37 @@
+package com.akerumort.libraryservice.controllers;
+
+import com.akerumort.libraryservice.dto.AutocompleteSuggestionDTO;
+import com.akerumort.libraryservice.services.AutocompleteIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/autocomplete")
+@RequiredArgsConstructor
+@Tag(name = "Autocomplete", description = "Book titles and author names for the search box")
+public class AutocompleteController {
+
+    private final AutocompleteIndex autocompleteIndex;
+
+    @GetMapping
+    @Operation(summary = "Get books and authors whose title or name starts with a prefix")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully received the suggestions"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<AutocompleteSuggestionDTO>> autocomplete(@RequestParam String prefix,
+                                                                        @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(autocompleteIndex.search(prefix, limit));
+    }
+}
@@ -1,6 +1,11 @@
 package com.akerumort.libraryservice.controllers;
 
+import com.akerumort.common.web.ConditionalGet;
+import com.akerumort.libraryservice.dto.BatchItemResultDTO;
 import com.akerumort.libraryservice.dto.BookDTO;
+import com.akerumort.libraryservice.dto.BookSearchDTO;
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import com.akerumort.libraryservice.dto.PageDTO;
 import com.akerumort.libraryservice.services.BookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -8,10 +13,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -26,23 +36,76 @@ public class BookController {
     @Operation(summary = "Get all books")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully received list of books"),
+            @ApiResponse(responseCode = "304", description = "No book changed since the given ETag"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<List<BookDTO>> getAllBooks() {
+    public ResponseEntity<List<BookDTO>> getAllBooks(WebRequest request) {
+        String eTag = bookService.getBooksETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
         List<BookDTO> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+        return ConditionalGet.ok(eTag, books);
+    }
+
+    @GetMapping(params = "page")
+    @Operation(summary = "Get a page of books")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully received the page of books"),
+            @ApiResponse(responseCode = "304", description = "No book changed since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid sort property"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<PageDTO<BookDTO>> getBooksPage(@PageableDefault(size = 20, sort = "id") Pageable pageable,
+                                                         WebRequest request) {
+        String eTag = bookService.getBooksETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
+        PageDTO<BookDTO> books = bookService.getBooksPage(pageable);
+        return ConditionalGet.ok(eTag, books);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search books by genre, publication years, title prefix and author")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully received the page of matching books"),
+            @ApiResponse(responseCode = "304", description = "No book changed since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or sort property"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<PageDTO<BookDTO>> searchBooks(@ParameterObject @Valid BookSearchDTO search,
+                                                        @ParameterObject @PageableDefault(size = 20, sort = "id")
+                                                        Pageable pageable,
+                                                        WebRequest request) {
+        String eTag = bookService.getBookSearchETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
+        PageDTO<BookDTO> books = bookService.searchBooks(search, pageable);
+        return ConditionalGet.ok(eTag, books);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get a book by ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully received the book"),
+            @ApiResponse(responseCode = "304", description = "Book did not change since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Book not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id, WebRequest request) {
+        // only the version is read before the request is checked, the book is loaded for a new or changed copy
+        String eTag = bookService.getBookETag(id);
+        if (eTag == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
         BookDTO book = bookService.getBookById(id);
-        return book != null ? ResponseEntity.ok(book) : ResponseEntity.notFound().build();
+        return book != null ? ConditionalGet.ok(ConditionalGet.strongETag(book.getVersion()), book)
+                : ResponseEntity.notFound().build();
     }
 
     @PostMapping
@@ -57,6 +120,28 @@ public class BookController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBook);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create several books at once")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Processed the batch, see the status of each item"),
+            @ApiResponse(responseCode = "400", description = "Batch is too large"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<BatchItemResultDTO<BookDTO>>> createBooks(@RequestBody List<BookDTO> bookDTOs) {
+        return ResponseEntity.ok(bookService.createBooks(bookDTOs));
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Update several books at once")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Processed the batch, see the status of each item"),
+            @ApiResponse(responseCode = "400", description = "Batch is too large"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<BatchItemResultDTO<BookDTO>>> updateBooks(@RequestBody List<BookDTO> bookDTOs) {
+        return ResponseEntity.ok(bookService.updateBooks(bookDTOs));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an existing book")
     @ApiResponses({
@@ -84,13 +169,14 @@ public class BookController {
     }
 
     @DeleteMapping
-    @Operation(summary = "Delete all books")
+    @Operation(summary = "Delete all books", description = "Starts a background job, its progress is at /delete-jobs/{id}")
     @ApiResponses({
-            @ApiResponse(responseCode = "204", description = "Successfully deleted all books"),
+            @ApiResponse(responseCode = "202", description = "Started the job, or returned the one already running"),
+            @ApiResponse(responseCode = "403", description = "Only admins can delete all books"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Void> deleteAllBooks() {
-        bookService.deleteAllBooks();
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<DeleteJobDTO> deleteAllBooks() {
+        DeleteJobDTO job = bookService.deleteAllBooks();
+        return ResponseEntity.accepted().location(URI.create("/delete-jobs/" + job.getId())).body(job);
     }
 }
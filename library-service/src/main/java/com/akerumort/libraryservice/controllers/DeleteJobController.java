@@ -0,0 +1,37 @@
+package com.akerumort.libraryservice.controllers;
+
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import com.akerumort.libraryservice.services.DeleteJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/delete-jobs")
+@RequiredArgsConstructor
+@Tag(name = "Delete jobs", description = "Progress of background jobs deleting all books or authors")
+public class DeleteJobController {
+
+    private final DeleteJobService deleteJobService;
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a delete job by ID")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully received the job"),
+            @ApiResponse(responseCode = "404", description = "Job not found or expired"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<DeleteJobDTO> getJob(@PathVariable UUID id) {
+        DeleteJobDTO job = deleteJobService.getJob(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+}
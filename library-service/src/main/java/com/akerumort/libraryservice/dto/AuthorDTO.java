@@ -33,6 +33,10 @@ public class AuthorDTO implements Serializable {
     @Schema(description = "Country of the author", example = "Russia")
     private String country;
 
+    @Schema(description = "Version of the author, raised by every change", example = "0",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
     @Schema(description = "Set of book IDs associated with the author")
     private Set<Long> bookIds = new HashSet<>();;
 }
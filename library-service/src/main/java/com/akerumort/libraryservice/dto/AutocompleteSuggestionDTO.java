@@ -0,0 +1,30 @@
+package com.akerumort.libraryservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for a book or author whose title or name starts with the typed prefix")
+public class AutocompleteSuggestionDTO implements Serializable {
+
+    @Schema(description = "Whether the suggestion is a book or an author", example = "BOOK")
+    private Type type;
+
+    @Schema(description = "ID of the book or author", example = "1")
+    private Long id;
+
+    @Schema(description = "Book title or author full name", example = "Java. The Complete Reference")
+    private String text;
+
+    public enum Type {
+        BOOK, AUTHOR
+    }
+}
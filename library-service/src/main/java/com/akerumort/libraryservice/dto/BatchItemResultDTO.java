@@ -0,0 +1,46 @@
+package com.akerumort.libraryservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for the outcome of one item of a batch request")
+public class BatchItemResultDTO<T> implements Serializable {
+
+    @Schema(description = "Zero-based position of the item in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Outcome of the item", example = "CREATED")
+    private Status status;
+
+    @Schema(description = "The item as stored, absent when it failed")
+    private T item;
+
+    @Schema(description = "Why the item was rejected, absent when it succeeded",
+            example = "One or more of the authors listed do not exist.")
+    private String error;
+
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    public static <T> BatchItemResultDTO<T> created(int index, T item) {
+        return new BatchItemResultDTO<>(index, Status.CREATED, item, null);
+    }
+
+    public static <T> BatchItemResultDTO<T> updated(int index, T item) {
+        return new BatchItemResultDTO<>(index, Status.UPDATED, item, null);
+    }
+
+    public static <T> BatchItemResultDTO<T> failed(int index, String error) {
+        return new BatchItemResultDTO<>(index, Status.FAILED, null, error);
+    }
+}
@@ -34,6 +34,10 @@ public class BookDTO implements Serializable {
     @Schema(description = "Publication year of the book", example = "2023")
     private Integer publicationYear;
 
+    @Schema(description = "Version of the book, raised by every change", example = "0",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
     @NotNull(message = "Author IDs cannot be null")
     @Schema(description = "Set of author IDs associated with the book")
     private Set<Long> authorIds;
@@ -0,0 +1,31 @@
+package com.akerumort.libraryservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@Schema(description = "Filters of a book search, absent filters match every book")
+public class BookSearchDTO implements Serializable {
+
+    @Schema(description = "Exact genre", example = "Programming")
+    private String genre;
+
+    @Positive(message = "Publication year must be positive")
+    @Schema(description = "Earliest publication year, inclusive", example = "2000")
+    private Integer yearFrom;
+
+    @Positive(message = "Publication year must be positive")
+    @Schema(description = "Latest publication year, inclusive", example = "2023")
+    private Integer yearTo;
+
+    @Schema(description = "Case-insensitive prefix of the title", example = "Java")
+    private String title;
+
+    @Schema(description = "ID of one of the authors", example = "1")
+    private Long authorId;
+}
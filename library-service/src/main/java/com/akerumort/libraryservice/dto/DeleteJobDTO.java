@@ -0,0 +1,47 @@
+package com.akerumort.libraryservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for the progress of a background job deleting all books or authors")
+public class DeleteJobDTO implements Serializable {
+
+    @Schema(description = "Job ID", example = "3f1c2a7e-0b5d-4c1e-9a53-2f7d9e4b8c10")
+    private UUID id;
+
+    @Schema(description = "Table being emptied", example = "book")
+    private String target;
+
+    @Schema(description = "State of the job", example = "RUNNING")
+    private Status status;
+
+    @Schema(description = "Rows present when the job started", example = "1000000")
+    private long total;
+
+    @Schema(description = "Rows deleted so far", example = "250000")
+    private long deleted;
+
+    @Schema(description = "When the job started")
+    private Instant startedAt;
+
+    @Schema(description = "When the job finished, absent while it runs")
+    private Instant finishedAt;
+
+    @Schema(description = "Why the job failed, absent unless it did")
+    private String error;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,33 @@
+package com.akerumort.libraryservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for one page of a listing")
+public class PageDTO<T> implements Serializable {
+
+    @Schema(description = "Items on this page")
+    private List<T> content;
+
+    @Schema(description = "Zero-based page number", example = "0")
+    private int page;
+
+    @Schema(description = "Requested page size", example = "20")
+    private int size;
+
+    @Schema(description = "Total number of items", example = "135")
+    private long totalElements;
+
+    @Schema(description = "Total number of pages", example = "7")
+    private int totalPages;
+}
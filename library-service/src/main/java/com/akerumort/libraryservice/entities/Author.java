@@ -18,7 +18,8 @@ import java.util.Set;
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_id_seq")
+    @SequenceGenerator(name = "author_id_seq", sequenceName = "author_id_seq", allocationSize = 50)
     @Schema(description = "Author ID", example = "1")
     private Long id;
 
@@ -34,6 +35,11 @@ public class Author {
     @Schema(description = "Country of the author", example = "Russia")
     private String country;
 
+    // see Book.version
+    @Column(name = "version", insertable = false, updatable = false)
+    @Schema(description = "Version of the author, raised by every change", example = "0")
+    private Long version = 0L;
+
     @ManyToMany
     @JoinTable(
             name = "book_author",
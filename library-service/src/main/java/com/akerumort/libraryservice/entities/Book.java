@@ -18,7 +18,9 @@ import java.util.Set;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // a pooled sequence instead of IDENTITY, so hibernate knows ids before the insert and can batch them (see V2 migration)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_id_seq")
+    @SequenceGenerator(name = "book_id_seq", sequenceName = "book_id_seq", allocationSize = 50)
     @Schema(description = "Book ID", example = "1")
     private Long id;
 
@@ -34,6 +36,11 @@ public class Book {
     @Schema(description = "Publication year of the book", example = "2023")
     private Integer publicationYear;
 
+    // written only by ChangeTrackingService, a new row starts at the column default
+    @Column(name = "version", insertable = false, updatable = false)
+    @Schema(description = "Version of the book, raised by every change", example = "0")
+    private Long version = 0L;
+
     @ManyToMany(mappedBy = "books")
     @Schema(description = "Set of authors associated with the book")
     private Set<Author> authors = new HashSet<>();
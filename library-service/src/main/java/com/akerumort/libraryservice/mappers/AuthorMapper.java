@@ -3,6 +3,7 @@ package com.akerumort.libraryservice.mappers;
 import com.akerumort.libraryservice.dto.AuthorDTO;
 import com.akerumort.libraryservice.entities.Author;
 import com.akerumort.libraryservice.entities.Book;
+import com.akerumort.libraryservice.projections.AuthorView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -15,7 +16,11 @@ public abstract class AuthorMapper {
     @Mapping(target = "bookIds", source = "books")
     public abstract AuthorDTO toDTO(Author author);
 
+    @Mapping(target = "bookIds", source = "bookIds")
+    public abstract AuthorDTO toDTO(AuthorView author, Set<Long> bookIds);
+
     @Mapping(target = "books", source = "bookIds")
+    @Mapping(target = "version", ignore = true)
     public abstract Author toEntity(AuthorDTO authorDTO);
 
     public Set<Long> mapBooksToIds(Set<Book> books) {
@@ -3,6 +3,7 @@ package com.akerumort.libraryservice.mappers;
 import com.akerumort.libraryservice.dto.BookDTO;
 import com.akerumort.libraryservice.entities.Author;
 import com.akerumort.libraryservice.entities.Book;
+import com.akerumort.libraryservice.projections.BookView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -15,7 +16,15 @@ public abstract class BookMapper {
     @Mapping(target = "authorIds", source = "authors")
     public abstract BookDTO toDTO(Book book);
 
+    // listing rows come without the lazy collection, the ids are resolved by a separate join table query
+    @Mapping(target = "authorIds", source = "authorIds")
+    public abstract BookDTO toDTO(BookView book, Set<Long> authorIds);
+
+    @Mapping(target = "authorIds", source = "authorIds")
+    public abstract BookDTO toDTO(Book book, Set<Long> authorIds);
+
     @Mapping(target = "authors", source = "authorIds")
+    @Mapping(target = "version", ignore = true)
     public abstract Book toEntity(BookDTO bookDTO);
 
     public Set<Long> mapAuthorsToIds(Set<Author> authors) {
@@ -0,0 +1,13 @@
+package com.akerumort.libraryservice.projections;
+
+public interface AuthorView {
+    Long getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getCountry();
+
+    Long getVersion();
+}
@@ -0,0 +1,24 @@
+package com.akerumort.libraryservice.projections;
+
+// one row of the book_author join table
+public interface BookAuthorLink {
+    Long getBookId();
+
+    Long getAuthorId();
+
+    static BookAuthorLink of(Long bookId, Long authorId) {
+        return new Link(bookId, authorId);
+    }
+
+    record Link(Long bookId, Long authorId) implements BookAuthorLink {
+        @Override
+        public Long getBookId() {
+            return bookId;
+        }
+
+        @Override
+        public Long getAuthorId() {
+            return authorId;
+        }
+    }
+}
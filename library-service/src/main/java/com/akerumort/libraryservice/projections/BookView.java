@@ -0,0 +1,13 @@
+package com.akerumort.libraryservice.projections;
+
+public interface BookView {
+    Long getId();
+
+    String getTitle();
+
+    String getGenre();
+
+    Integer getPublicationYear();
+
+    Long getVersion();
+}
@@ -1,7 +1,42 @@
 package com.akerumort.libraryservice.repos;
 
 import com.akerumort.libraryservice.entities.Author;
+import com.akerumort.libraryservice.projections.AuthorView;
+import com.akerumort.libraryservice.projections.BookAuthorLink;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface AuthorRepository extends JpaRepository<Author, Long> {
+
+    Page<AuthorView> findAllProjectedBy(Pageable pageable);
+
+    // see BookRepository.streamAllProjectedBy
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<AuthorView> streamAllProjectedBy();
+
+    @Query(value = "SELECT book_id AS bookId, author_id AS authorId FROM book_author WHERE author_id IN (:authorIds)",
+            nativeQuery = true)
+    List<BookAuthorLink> findBookLinksByAuthorIds(@Param("authorIds") Collection<Long> authorIds);
+
+    @Query("SELECT a.id FROM Author a WHERE a.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // see BookRepository.deleteChunk
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM author WHERE id IN (SELECT id FROM author LIMIT :limit)", nativeQuery = true)
+    int deleteChunk(@Param("limit") int limit);
 }
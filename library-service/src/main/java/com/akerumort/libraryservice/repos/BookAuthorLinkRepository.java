@@ -0,0 +1,68 @@
+package com.akerumort.libraryservice.repos;
+
+import com.akerumort.libraryservice.projections.BookAuthorLink;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+// Writes book_author rows directly instead of loading and saving the linked entities.
+// Every method is one statement taking its ids as arrays, however many links it touches.
+@Repository
+@RequiredArgsConstructor
+public class BookAuthorLinkRepository {
+
+    private static final String INSERT_LINKS_SQL = """
+            INSERT INTO book_author (author_id, book_id)
+            SELECT * FROM unnest(?::bigint[], ?::bigint[])
+            ON CONFLICT DO NOTHING
+            """;
+    private static final String DELETE_LINKS_SQL = """
+            DELETE FROM book_author ba
+            USING unnest(?::bigint[], ?::bigint[]) AS link(author_id, book_id)
+            WHERE ba.author_id = link.author_id AND ba.book_id = link.book_id
+            """;
+    private static final String DELETE_BY_BOOK_IDS_SQL =
+            "DELETE FROM book_author WHERE book_id = ANY(?::bigint[]) RETURNING author_id";
+    private static final String DELETE_BY_AUTHOR_IDS_SQL =
+            "DELETE FROM book_author WHERE author_id = ANY(?::bigint[]) RETURNING book_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertLinks(Collection<BookAuthorLink> links) {
+        updateLinks(INSERT_LINKS_SQL, links);
+    }
+
+    public void deleteLinks(Collection<BookAuthorLink> links) {
+        updateLinks(DELETE_LINKS_SQL, links);
+    }
+
+    // returns the ids of the authors that lost a book
+    public Set<Long> deleteByBookIds(Collection<Long> bookIds) {
+        return deleteReturningIds(DELETE_BY_BOOK_IDS_SQL, bookIds);
+    }
+
+    // returns the ids of the books that lost an author
+    public Set<Long> deleteByAuthorIds(Collection<Long> authorIds) {
+        return deleteReturningIds(DELETE_BY_AUTHOR_IDS_SQL, authorIds);
+    }
+
+    private void updateLinks(String sql, Collection<BookAuthorLink> links) {
+        if (links.isEmpty()) {
+            return;
+        }
+        Long[] authorIds = links.stream().map(BookAuthorLink::getAuthorId).toArray(Long[]::new);
+        Long[] bookIds = links.stream().map(BookAuthorLink::getBookId).toArray(Long[]::new);
+        jdbcTemplate.update(sql, authorIds, bookIds);
+    }
+
+    private Set<Long> deleteReturningIds(String sql, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, (Object) ids.toArray(Long[]::new)));
+    }
+}
@@ -1,7 +1,43 @@
 package com.akerumort.libraryservice.repos;
 
 import com.akerumort.libraryservice.entities.Book;
+import com.akerumort.libraryservice.projections.BookAuthorLink;
+import com.akerumort.libraryservice.projections.BookView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+
+    Page<BookView> findAllProjectedBy(Pageable pageable);
+
+    // rows are fetched from the cursor in blocks instead of being read into memory at once, needs a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<BookView> streamAllProjectedBy();
+
+    @Query(value = "SELECT book_id AS bookId, author_id AS authorId FROM book_author WHERE book_id IN (:bookIds)",
+            nativeQuery = true)
+    List<BookAuthorLink> findAuthorLinksByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("SELECT b.id FROM Book b WHERE b.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // one chunk per transaction, the book_author rows go with it through ON DELETE CASCADE
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM book WHERE id IN (SELECT id FROM book LIMIT :limit)", nativeQuery = true)
+    int deleteChunk(@Param("limit") int limit);
 }
@@ -0,0 +1,69 @@
+package com.akerumort.libraryservice.repos;
+
+import com.akerumort.libraryservice.dto.BookSearchDTO;
+import com.akerumort.libraryservice.entities.Author;
+import com.akerumort.libraryservice.entities.Book;
+import jakarta.persistence.criteria.Join;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Search filters for books, each one backed by an index from the V3 migration.
+public final class BookSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> matching(BookSearchDTO search) {
+        List<Specification<Book>> specifications = new ArrayList<>();
+        if (search.getGenre() != null) {
+            specifications.add(hasGenre(search.getGenre()));
+        }
+        if (search.getYearFrom() != null) {
+            specifications.add(publishedFrom(search.getYearFrom()));
+        }
+        if (search.getYearTo() != null) {
+            specifications.add(publishedTo(search.getYearTo()));
+        }
+        if (search.getTitle() != null && !search.getTitle().isEmpty()) {
+            specifications.add(titleStartsWith(search.getTitle()));
+        }
+        if (search.getAuthorId() != null) {
+            specifications.add(hasAuthor(search.getAuthorId()));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    public static Specification<Book> hasGenre(String genre) {
+        return (root, query, cb) -> cb.equal(root.get("genre"), genre);
+    }
+
+    public static Specification<Book> publishedFrom(int year) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("publicationYear"), year);
+    }
+
+    public static Specification<Book> publishedTo(int year) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("publicationYear"), year);
+    }
+
+    // ILIKE rather than lower(title) LIKE, the trigram index answers ILIKE directly
+    public static Specification<Book> titleStartsWith(String prefix) {
+        return (root, query, cb) -> ((HibernateCriteriaBuilder) cb)
+                .ilike(root.get("title"), escapeLike(prefix) + "%", LIKE_ESCAPE);
+    }
+
+    public static Specification<Book> hasAuthor(Long authorId) {
+        return (root, query, cb) -> {
+            Join<Book, Author> authors = root.join("authors");
+            return cb.equal(authors.get("id"), authorId);
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,24 +1,42 @@
 package com.akerumort.libraryservice.services;
 
+import com.akerumort.common.web.ConditionalGet;
 import com.akerumort.libraryservice.dto.AuthorDTO;
+import com.akerumort.libraryservice.dto.BatchItemResultDTO;
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import com.akerumort.libraryservice.dto.PageDTO;
 import com.akerumort.libraryservice.entities.Author;
 import com.akerumort.libraryservice.entities.Book;
 import com.akerumort.libraryservice.exceptions.CustomException;
 import com.akerumort.libraryservice.mappers.AuthorMapper;
+import com.akerumort.libraryservice.projections.AuthorView;
+import com.akerumort.libraryservice.projections.BookAuthorLink;
 import com.akerumort.libraryservice.repos.AuthorRepository;
+import com.akerumort.libraryservice.repos.BookAuthorLinkRepository;
 import com.akerumort.libraryservice.repos.BookRepository;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,13 +47,49 @@ public class AuthorService {
     private final AuthorRepository authorRepository; // final для иммутабельности
     private final AuthorMapper authorMapper;
     private final BookRepository bookRepository;
+    private final BookAuthorLinkRepository bookAuthorLinkRepository;
+    private final CacheEvictionService cacheEvictionService;
+    private final Validator validator;
+    private final DeleteJobService deleteJobService;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ChangeTrackingService changeTrackingService;
+
+    @Value("${library.batch.max-size:1000}")
+    private int maxBatchSize = 1000;
 
     public List<AuthorDTO> getAllAuthors() {
         logger.info("Fetching all authors");
         return authorRepository.findAll().stream().map(authorMapper::toDTO).collect(Collectors.toList());
     }
 
-    @Cacheable(value = "author", key = "#id")
+    public PageDTO<AuthorDTO> getAuthorsPage(Pageable pageable) {
+        logger.info("Fetching authors page: {}", pageable);
+        Page<AuthorView> page = authorRepository.findAllProjectedBy(pageable);
+
+        Map<Long, Set<Long>> bookIds = new HashMap<>();
+        if (page.hasContent()) {
+            List<Long> authorIds = page.getContent().stream().map(AuthorView::getId).collect(Collectors.toList());
+            for (BookAuthorLink link : authorRepository.findBookLinksByAuthorIds(authorIds)) {
+                bookIds.computeIfAbsent(link.getAuthorId(), id -> new HashSet<>()).add(link.getBookId());
+            }
+        }
+
+        List<AuthorDTO> authors = page.getContent().stream()
+                .map(author -> authorMapper.toDTO(author, bookIds.getOrDefault(author.getId(), new HashSet<>())))
+                .collect(Collectors.toList());
+        return new PageDTO<>(authors, page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+
+    public String getAuthorsETag() {
+        return changeTrackingService.getListETag("author");
+    }
+
+    // null when the author does not exist
+    public String getAuthorETag(Long id) {
+        return ConditionalGet.strongETag(changeTrackingService.getVersion("author", id));
+    }
+
+    @Cacheable(value = "author", key = "#id", sync = true)
     public AuthorDTO getAuthorById(Long id) {
         logger.info("Fetching author with ID: {}", id);
         return authorMapper.toDTO(authorRepository
@@ -43,9 +97,11 @@ public class AuthorService {
                 .orElse(null));
     }
 
-    public Set<Author> getAuthorsByIds(Set<Long> ids) {
-        logger.info("Fetching authors with IDs: {}", ids);
-        return authorRepository.findAllById(ids).stream().collect(Collectors.toSet());
+    public Set<Long> getExistingAuthorIds(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return authorRepository.findExistingIds(ids);
     }
 
     @Transactional
@@ -63,104 +119,219 @@ public class AuthorService {
             Author author = authorMapper.toEntity(authorDTO);
             author.setBooks(books);
             Author savedAuthor = authorRepository.save(author);
+            cacheEvictionService.evictAfterCommit("book", bookIds);
+            changeTrackingService.listChanged("author");
+            changeTrackingService.changed("book", bookIds);
+            autocompleteIndex.indexAuthors(List.of(savedAuthor));
             logger.info("Author saved with ID: {}", savedAuthor.getId());
             return authorMapper.toDTO(savedAuthor);
         }
 
-        Author author = authorMapper.toEntity(authorDTO);
-        return authorMapper.toDTO(authorRepository.save(author));
+        Author savedAuthor = authorRepository.save(authorMapper.toEntity(authorDTO));
+        changeTrackingService.listChanged("author");
+        autocompleteIndex.indexAuthors(List.of(savedAuthor));
+        return authorMapper.toDTO(savedAuthor);
     }
 
     @Transactional
-    @CachePut(value = "author", key = "#id")
-    public AuthorDTO updateAuthor(Long id, AuthorDTO authorDTO) {
-        logger.info("Updating author with ID: {}", id);
+    public List<BatchItemResultDTO<AuthorDTO>> createAuthors(List<AuthorDTO> authorDTOs) {
+        logger.info("Creating {} authors in a batch", authorDTOs.size());
+        checkBatchSize(authorDTOs);
+        Set<Long> existingBookIds = getExistingBookIds(authorDTOs);
 
-        if (!authorRepository.existsById(id)) {
-            logger.error("Author with ID {} does not exist.", id);
-            throw new CustomException("Author with ID " + id + " does not exist.");
+        List<BatchItemResultDTO<AuthorDTO>> results = new ArrayList<>(Collections.nCopies(authorDTOs.size(), null));
+        Map<Integer, Author> authors = new LinkedHashMap<>();
+        for (int i = 0; i < authorDTOs.size(); i++) {
+            String error = validate(authorDTOs.get(i), existingBookIds);
+            if (error != null) {
+                results.set(i, BatchItemResultDTO.failed(i, error));
+                continue;
+            }
+            Author author = authorMapper.toEntity(authorDTOs.get(i));
+            author.setId(null);
+            author.setBooks(new HashSet<>());
+            authors.put(i, author);
         }
+        authorRepository.saveAll(List.copyOf(authors.values()));
+        authorRepository.flush();
 
-        Author existingAuthor = authorRepository.findById(id).orElseThrow(() ->
-                new CustomException("Author with ID " + id + " does not exist."));
+        List<BookAuthorLink> links = new ArrayList<>();
+        Set<Long> bookIds = new HashSet<>();
+        authors.forEach((i, author) -> {
+            Set<Long> authorBookIds = bookIdsOf(authorDTOs.get(i));
+            authorBookIds.forEach(bookId -> links.add(BookAuthorLink.of(bookId, author.getId())));
+            bookIds.addAll(authorBookIds);
+            AuthorDTO created = authorMapper.toDTO(author);
+            created.setBookIds(new HashSet<>(authorBookIds));
+            results.set(i, BatchItemResultDTO.created(i, created));
+        });
+        bookAuthorLinkRepository.insertLinks(links);
+        cacheEvictionService.evictAfterCommit("book", bookIds);
+        changeTrackingService.listChanged("author");
+        changeTrackingService.changed("book", bookIds);
+        autocompleteIndex.indexAuthors(authors.values());
 
-        existingAuthor.setFirstName(authorDTO.getFirstName());
-        existingAuthor.setLastName(authorDTO.getLastName());
-        existingAuthor.setCountry(authorDTO.getCountry());
+        logger.info("Created {} of {} authors", authors.size(), authorDTOs.size());
+        return results;
+    }
 
-        Set<Book> newBooks = new HashSet<>();
-        if (authorDTO.getBookIds() != null && !authorDTO.getBookIds().isEmpty()) {
-            newBooks = bookRepository.findAllById(authorDTO.getBookIds()).stream().collect(Collectors.toSet());
-            if (newBooks.size() != authorDTO.getBookIds().size()) {
-                logger.error("One or more of the books listed do not exist. " +
-                                "Provided IDs: {}, Existing IDs: {}", authorDTO.getBookIds(),
-                        newBooks.stream().map(Book::getId).collect(Collectors.toSet()));
-                throw new CustomException("One or more of the books listed do not exist.");
+    @Transactional
+    public List<BatchItemResultDTO<AuthorDTO>> updateAuthors(List<AuthorDTO> authorDTOs) {
+        logger.info("Updating {} authors in a batch", authorDTOs.size());
+        checkBatchSize(authorDTOs);
+        Set<Long> authorIds = authorDTOs.stream().map(AuthorDTO::getId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Author> authors = authorRepository.findAllById(authorIds).stream()
+                .collect(Collectors.toMap(Author::getId, author -> author));
+        Set<Long> existingBookIds = getExistingBookIds(authorDTOs);
+        Map<Long, Set<Long>> currentBookIds = new HashMap<>();
+        if (!authorIds.isEmpty()) {
+            for (BookAuthorLink link : authorRepository.findBookLinksByAuthorIds(authorIds)) {
+                currentBookIds.computeIfAbsent(link.getAuthorId(), id -> new HashSet<>()).add(link.getBookId());
             }
         }
 
-        Set<Book> currentBooks = existingAuthor.getBooks();
-
-        // удаляем старые книги
-        for (Book book : currentBooks) {
-            if (!newBooks.contains(book)) {
-                book.getAuthors().remove(existingAuthor);
-                bookRepository.save(book);
+        List<BatchItemResultDTO<AuthorDTO>> results = new ArrayList<>(authorDTOs.size());
+        List<BookAuthorLink> addedLinks = new ArrayList<>();
+        List<BookAuthorLink> removedLinks = new ArrayList<>();
+        Set<Long> updatedAuthorIds = new HashSet<>();
+        for (int i = 0; i < authorDTOs.size(); i++) {
+            AuthorDTO authorDTO = authorDTOs.get(i);
+            Author author = authorDTO.getId() == null ? null : authors.get(authorDTO.getId());
+            String error = author == null ? "Author with ID " + authorDTO.getId() + " does not exist."
+                    : validate(authorDTO, existingBookIds);
+            if (error != null) {
+                results.add(BatchItemResultDTO.failed(i, error));
+                continue;
             }
+            author.setFirstName(authorDTO.getFirstName());
+            author.setLastName(authorDTO.getLastName());
+            author.setCountry(authorDTO.getCountry());
+
+            Set<Long> oldBookIds = currentBookIds.getOrDefault(author.getId(), Set.of());
+            Set<Long> newBookIds = bookIdsOf(authorDTO);
+            newBookIds.stream().filter(id -> !oldBookIds.contains(id))
+                    .forEach(id -> addedLinks.add(BookAuthorLink.of(id, author.getId())));
+            oldBookIds.stream().filter(id -> !newBookIds.contains(id))
+                    .forEach(id -> removedLinks.add(BookAuthorLink.of(id, author.getId())));
+            currentBookIds.put(author.getId(), new HashSet<>(newBookIds));
+            updatedAuthorIds.add(author.getId());
+
+            AuthorDTO updated = authorMapper.toDTO(author);
+            updated.setBookIds(new HashSet<>(newBookIds));
+            results.add(BatchItemResultDTO.updated(i, updated));
         }
+        authorRepository.flush();
+        bookAuthorLinkRepository.deleteLinks(removedLinks);
+        bookAuthorLinkRepository.insertLinks(addedLinks);
 
-        existingAuthor.setBooks(newBooks);
+        cacheEvictionService.evictAfterCommit("author", updatedAuthorIds);
+        Set<Long> changedBookIds = new HashSet<>();
+        addedLinks.forEach(link -> changedBookIds.add(link.getBookId()));
+        removedLinks.forEach(link -> changedBookIds.add(link.getBookId()));
+        cacheEvictionService.evictAfterCommit("book", changedBookIds);
+        Map<Long, Long> versions = changeTrackingService.changed("author", updatedAuthorIds);
+        changeTrackingService.changed("book", changedBookIds);
+        results.stream().map(BatchItemResultDTO::getItem).filter(Objects::nonNull)
+                .forEach(updated -> updated.setVersion(versions.get(updated.getId())));
+        autocompleteIndex.indexAuthors(updatedAuthorIds.stream().map(authors::get).collect(Collectors.toList()));
 
-        // добавляем новые книги к автору
-        for (Book book : newBooks) {
-            if (!book.getAuthors().contains(existingAuthor)) {
-                book.getAuthors().add(existingAuthor);
-                bookRepository.save(book);
-            }
+        logger.info("Updated {} of {} authors", updatedAuthorIds.size(), authorDTOs.size());
+        return results;
+    }
+
+    private void checkBatchSize(List<AuthorDTO> authorDTOs) {
+        if (authorDTOs.size() > maxBatchSize) {
+            throw new CustomException("A batch can contain at most " + maxBatchSize + " authors.");
+        }
+    }
+
+    private Set<Long> getExistingBookIds(List<AuthorDTO> authorDTOs) {
+        Set<Long> bookIds = authorDTOs.stream()
+                .flatMap(authorDTO -> bookIdsOf(authorDTO).stream())
+                .collect(Collectors.toSet());
+        return bookIds.isEmpty() ? new HashSet<>() : bookRepository.findExistingIds(bookIds);
+    }
+
+    private static Set<Long> bookIdsOf(AuthorDTO authorDTO) {
+        return authorDTO.getBookIds() == null ? Set.of() : authorDTO.getBookIds();
+    }
+
+    private String validate(AuthorDTO authorDTO, Set<Long> existingBookIds) {
+        Set<ConstraintViolation<AuthorDTO>> violations = validator.validate(authorDTO);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+        }
+        if (!existingBookIds.containsAll(bookIdsOf(authorDTO))) {
+            return "One or more of the books listed do not exist.";
         }
+        return null;
+    }
+
+    @Transactional
+    @CachePut(value = "author", key = "#id")
+    public AuthorDTO updateAuthor(Long id, AuthorDTO authorDTO) {
+        logger.info("Updating author with ID: {}", id);
+
+        Author existingAuthor = authorRepository.findById(id).orElseThrow(() -> {
+            logger.error("Author with ID {} does not exist.", id);
+            return new CustomException("Author with ID " + id + " does not exist.");
+        });
+
+        existingAuthor.setFirstName(authorDTO.getFirstName());
+        existingAuthor.setLastName(authorDTO.getLastName());
+        existingAuthor.setCountry(authorDTO.getCountry());
+
+        Set<Long> newBookIds = authorDTO.getBookIds() == null ? Set.of() : authorDTO.getBookIds();
+        checkBooksExist(newBookIds);
+        Set<Long> currentBookIds = findBookIds(id);
+
+        List<BookAuthorLink> removedLinks = currentBookIds.stream()
+                .filter(bookId -> !newBookIds.contains(bookId))
+                .map(bookId -> BookAuthorLink.of(bookId, id))
+                .collect(Collectors.toList());
+        List<BookAuthorLink> addedLinks = newBookIds.stream()
+                .filter(bookId -> !currentBookIds.contains(bookId))
+                .map(bookId -> BookAuthorLink.of(bookId, id))
+                .collect(Collectors.toList());
+        bookAuthorLinkRepository.deleteLinks(removedLinks);
+        bookAuthorLinkRepository.insertLinks(addedLinks);
+
+        Set<Long> changedBookIds = new HashSet<>();
+        removedLinks.forEach(link -> changedBookIds.add(link.getBookId()));
+        addedLinks.forEach(link -> changedBookIds.add(link.getBookId()));
+        cacheEvictionService.evictAfterCommit("book", changedBookIds);
+        Map<Long, Long> versions = changeTrackingService.changed("author", List.of(id));
+        changeTrackingService.changed("book", changedBookIds);
 
         Author updatedAuthor = authorRepository.save(existingAuthor);
+        autocompleteIndex.indexAuthors(List.of(updatedAuthor));
         logger.info("Author updated successfully with ID: {}", updatedAuthor.getId());
-        return authorMapper.toDTO(updatedAuthor);
+        AuthorDTO updatedAuthorDTO = toDTO(updatedAuthor, newBookIds);
+        updatedAuthorDTO.setVersion(versions.get(id));
+        return updatedAuthorDTO;
     }
 
     @Transactional
     @CacheEvict(value = "author", key = "#id")
     public void deleteAuthor(Long id) {
         logger.info("Deleting author with ID: {}", id);
-        Author author = authorRepository.findById(id).orElseThrow(() -> new CustomException("Author with ID " +
-                id + " does not exist."));
-
-        // удаляем автора из книги
-        for (Book book : author.getBooks()) {
-            book.getAuthors().remove(author);
-            bookRepository.save(book);
+        if (!authorRepository.existsById(id)) {
+            throw new CustomException("Author with ID " + id + " does not exist.");
         }
 
+        Set<Long> bookIds = bookAuthorLinkRepository.deleteByAuthorIds(List.of(id));
         authorRepository.deleteById(id);
+        cacheEvictionService.evictAfterCommit("book", bookIds);
+        changeTrackingService.listChanged("author");
+        changeTrackingService.changed("book", bookIds);
+        autocompleteIndex.removeAuthors(List.of(id));
         logger.info("Author deleted successfully.");
     }
 
-    @Transactional
-    @CacheEvict(value = "author", allEntries = true)
-    public void deleteAllAuthors() {
+    public DeleteJobDTO deleteAllAuthors() {
         logger.info("Deleting all authors...");
-        List<Author> authors = authorRepository.findAll();
-        for (Author author : authors) {
-            for (Book book : author.getBooks()) {
-                book.getAuthors().remove(author);
-                bookRepository.save(book);
-            }
-        }
-        authorRepository.deleteAll();
-        logger.info("All authors deleted successfully.");
-    }
-
-    @Transactional
-    @CacheEvict(value = "author", key = "#author.id")
-    public void saveAuthor(Author author) {
-        logger.info("Saving author: {}", author);
-        authorRepository.save(author);
+        return deleteJobService.start("author", authorRepository::count, authorRepository::deleteChunk);
     }
 
     @Transactional
@@ -169,19 +340,47 @@ public class AuthorService {
         logger.info("Adding books to author with ID: {}", authorId);
         Author author = authorRepository.findById(authorId).orElseThrow(()->
                 new CustomException("Author with ID " + authorId + " does not exist."));
-        Set<Book> books = bookRepository.findAllById(bookIds).stream().collect(Collectors.toSet());
+        checkBooksExist(bookIds);
 
-        if (books.size() != bookIds.size()) {
-            logger.error("One or more of the books listed do not exist.");
-            throw new CustomException("One or more of the books listed do not exist.");
-        }
+        Set<Long> currentBookIds = findBookIds(authorId);
+        List<BookAuthorLink> addedLinks = bookIds.stream()
+                .filter(bookId -> !currentBookIds.contains(bookId))
+                .map(bookId -> BookAuthorLink.of(bookId, authorId))
+                .collect(Collectors.toList());
+        bookAuthorLinkRepository.insertLinks(addedLinks);
+        Set<Long> addedBookIds = addedLinks.stream().map(BookAuthorLink::getBookId).collect(Collectors.toSet());
+        cacheEvictionService.evictAfterCommit("book", addedBookIds);
+        changeTrackingService.changed("book", addedBookIds);
+        Map<Long, Long> versions = changeTrackingService.changed("author", List.of(authorId));
 
-        author.getBooks().addAll(books);
-        books.forEach(book -> book.getAuthors().add(author));
+        currentBookIds.addAll(bookIds);
+        AuthorDTO authorDTO = toDTO(author, currentBookIds);
+        authorDTO.setVersion(versions.get(authorId));
+        return authorDTO;
+    }
+
+    private Set<Long> findBookIds(Long authorId) {
+        return authorRepository.findBookLinksByAuthorIds(List.of(authorId)).stream()
+                .map(BookAuthorLink::getBookId)
+                .collect(Collectors.toSet());
+    }
 
-        authorRepository.save(author);
-        bookRepository.saveAll(books);
+    private void checkBooksExist(Set<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        Set<Long> existingBookIds = bookRepository.findExistingIds(bookIds);
+        if (existingBookIds.size() != bookIds.size()) {
+            logger.error("One or more of the books listed do not exist. " +
+                    "Provided IDs: {}, Existing IDs: {}", bookIds, existingBookIds);
+            throw new CustomException("One or more of the books listed do not exist.");
+        }
+    }
 
-        return authorMapper.toDTO(author);
+    // the books collection is not refreshed by the link statements, so the ids are set explicitly
+    private AuthorDTO toDTO(Author author, Set<Long> bookIds) {
+        AuthorDTO authorDTO = authorMapper.toDTO(author);
+        authorDTO.setBookIds(new HashSet<>(bookIds));
+        return authorDTO;
     }
 }
@@ -0,0 +1,308 @@
+package com.akerumort.libraryservice.services;
+
+import com.akerumort.libraryservice.dto.AutocompleteSuggestionDTO;
+import com.akerumort.libraryservice.entities.Author;
+import com.akerumort.libraryservice.entities.Book;
+import com.akerumort.libraryservice.exceptions.CustomException;
+import com.akerumort.libraryservice.projections.AuthorView;
+import com.akerumort.libraryservice.projections.BookView;
+import com.akerumort.libraryservice.repos.AuthorRepository;
+import com.akerumort.libraryservice.repos.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Answers title and author name prefixes from memory. Lookups read an immutable state without locking:
+// a base of sorted arrays built from a scan of both tables, plus a small delta of the entries written since,
+// which is merged into a new base once it grows past the compaction threshold.
+@Service
+@RequiredArgsConstructor
+public class AutocompleteIndex {
+
+    private static final Logger logger = LogManager.getLogger(AutocompleteIndex.class);
+    private static final int MAX_LIMIT = 50;
+    private static final AutocompleteSuggestionDTO.Type[] TYPES = AutocompleteSuggestionDTO.Type.values();
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    // delta entries plus hidden base entries, past this the next write rebuilds the base arrays
+    @Value("${library.autocomplete.compaction-threshold:1024}")
+    private int compactionThreshold = 1024;
+
+    private volatile State state = new State(Snapshot.EMPTY, Snapshot.EMPTY, Set.of());
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("library.autocomplete.entries", this, index -> index.state.size())
+                .description("Keys in the autocomplete index")
+                .register(meterRegistry);
+        Gauge.builder("library.autocomplete.memory", this, index -> index.state.memoryBytes())
+                .description("Estimated heap used by the autocomplete index")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        rebuild();
+    }
+
+    public List<AutocompleteSuggestionDTO> search(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new CustomException("limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        String key = prefix == null ? "" : normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        // walks the matching ranges of base and delta in key order, like a merge
+        State current = state;
+        Snapshot base = current.base();
+        Snapshot delta = current.delta();
+        int i = base.lowerBound(key);
+        int j = delta.lowerBound(key);
+        List<AutocompleteSuggestionDTO> suggestions = new ArrayList<>();
+        Set<Target> seen = new HashSet<>();
+        while (suggestions.size() < limit) {
+            boolean inBase = i < base.size() && base.keys[i].startsWith(key);
+            boolean inDelta = j < delta.size() && delta.keys[j].startsWith(key);
+            if (!inBase && !inDelta) {
+                break;
+            }
+            Entry entry;
+            if (inBase && (!inDelta || base.keys[i].compareTo(delta.keys[j]) <= 0)) {
+                entry = base.entry(i++);
+                if (current.removed().contains(entry.target())) {
+                    continue;
+                }
+            } else {
+                entry = delta.entry(j++);
+            }
+            // an author is indexed under both name orders but suggested once
+            if (seen.add(entry.target())) {
+                suggestions.add(new AutocompleteSuggestionDTO(TYPES[entry.type()], entry.id(), entry.label()));
+            }
+        }
+        return suggestions;
+    }
+
+    public void indexBooks(Collection<Book> books) {
+        List<Entry> entries = new ArrayList<>();
+        books.forEach(book -> addBook(entries, book.getId(), book.getTitle()));
+        applyAfterCommit(entries, targets(AutocompleteSuggestionDTO.Type.BOOK,
+                books.stream().map(Book::getId).collect(Collectors.toList())));
+    }
+
+    public void indexAuthors(Collection<Author> authors) {
+        List<Entry> entries = new ArrayList<>();
+        authors.forEach(author -> addAuthor(entries, author.getId(), author.getFirstName(), author.getLastName()));
+        applyAfterCommit(entries, targets(AutocompleteSuggestionDTO.Type.AUTHOR,
+                authors.stream().map(Author::getId).collect(Collectors.toList())));
+    }
+
+    public void removeBooks(Collection<Long> ids) {
+        applyAfterCommit(List.of(), targets(AutocompleteSuggestionDTO.Type.BOOK, ids));
+    }
+
+    public void removeAuthors(Collection<Long> ids) {
+        applyAfterCommit(List.of(), targets(AutocompleteSuggestionDTO.Type.AUTHOR, ids));
+    }
+
+    // writes wait for a running rebuild, so a change committed during the scan is applied on top of its result
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        List<Entry> entries = new ArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<BookView> books = bookRepository.streamAllProjectedBy()) {
+                books.forEach(book -> addBook(entries, book.getId(), book.getTitle()));
+            }
+            try (Stream<AuthorView> authors = authorRepository.streamAllProjectedBy()) {
+                authors.forEach(author ->
+                        addAuthor(entries, author.getId(), author.getFirstName(), author.getLastName()));
+            }
+        });
+        state = new State(new Snapshot(entries), Snapshot.EMPTY, Set.of());
+        logger.info("Built autocomplete index with {} keys ({} bytes) in {} ms", state.size(),
+                state.memoryBytes(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void applyAfterCommit(List<Entry> entries, Set<Target> targets) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        // a rolled back write must not show up in suggestions
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(entries, targets);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(entries, targets);
+            }
+        });
+    }
+
+    // the entries replace everything indexed for the targets
+    private synchronized void apply(List<Entry> entries, Set<Target> targets) {
+        State current = state;
+        List<Entry> delta = current.delta().entries()
+                .filter(entry -> !targets.contains(entry.target()))
+                .collect(Collectors.toCollection(ArrayList::new));
+        delta.addAll(entries);
+        Set<Target> removed = new HashSet<>(current.removed());
+        removed.addAll(targets);
+
+        if (delta.size() + removed.size() > compactionThreshold) {
+            List<Entry> merged = current.base().entries()
+                    .filter(entry -> !removed.contains(entry.target()))
+                    .collect(Collectors.toCollection(ArrayList::new));
+            merged.addAll(delta);
+            state = new State(new Snapshot(merged), Snapshot.EMPTY, Set.of());
+        } else {
+            state = new State(current.base(), new Snapshot(delta), removed);
+        }
+    }
+
+    private static Set<Target> targets(AutocompleteSuggestionDTO.Type type, Collection<Long> ids) {
+        return ids.stream().map(id -> new Target((byte) type.ordinal(), id)).collect(Collectors.toSet());
+    }
+
+    private static void addBook(List<Entry> entries, Long id, String title) {
+        addEntry(entries, title, title, AutocompleteSuggestionDTO.Type.BOOK, id);
+    }
+
+    // "leo t" and "tolstoy" should both find Leo Tolstoy
+    private static void addAuthor(List<Entry> entries, Long id, String firstName, String lastName) {
+        String fullName = firstName + " " + lastName;
+        addEntry(entries, fullName, fullName, AutocompleteSuggestionDTO.Type.AUTHOR, id);
+        addEntry(entries, lastName + " " + firstName, fullName, AutocompleteSuggestionDTO.Type.AUTHOR, id);
+    }
+
+    private static void addEntry(List<Entry> entries, String text, String label,
+                                 AutocompleteSuggestionDTO.Type type, Long id) {
+        if (text == null || id == null) {
+            return;
+        }
+        String key = normalize(text);
+        if (!key.isEmpty()) {
+            // an already lowercase label is the key itself and is stored once
+            entries.add(new Entry(key, label.equals(key) ? key : label, (byte) type.ordinal(), id));
+        }
+    }
+
+    private static String normalize(String text) {
+        return text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record Target(byte type, long id) {
+    }
+
+    private record Entry(String key, String label, byte type, long id) {
+        Target target() {
+            return new Target(type, id);
+        }
+    }
+
+    // removed hides base entries of books and authors that were changed or deleted since the base was built
+    private record State(Snapshot base, Snapshot delta, Set<Target> removed) {
+        int size() {
+            return base.size() + delta.size();
+        }
+
+        long memoryBytes() {
+            return base.memoryBytes + delta.memoryBytes + removed.size() * 64L;
+        }
+    }
+
+    // entries sorted by key in parallel arrays, a prefix is a contiguous range found by binary search
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new ArrayList<>());
+
+        final String[] keys;
+        final String[] labels;
+        final byte[] types;
+        final long[] ids;
+        final long memoryBytes;
+
+        Snapshot(List<Entry> entries) {
+            entries.sort(Comparator.comparing(Entry::key));
+            int size = entries.size();
+            keys = new String[size];
+            labels = new String[size];
+            types = new byte[size];
+            ids = new long[size];
+            // array headers and slots, plus the strings not shared with another slot
+            long bytes = 4 * 16 + size * (4L + 4 + 1 + 8);
+            for (int i = 0; i < size; i++) {
+                Entry entry = entries.get(i);
+                keys[i] = entry.key();
+                labels[i] = entry.label();
+                types[i] = entry.type();
+                ids[i] = entry.id();
+                bytes += stringBytes(keys[i]);
+                if (labels[i] != keys[i]) {
+                    bytes += stringBytes(labels[i]);
+                }
+            }
+            memoryBytes = bytes;
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        Entry entry(int i) {
+            return new Entry(keys[i], labels[i], types[i], ids[i]);
+        }
+
+        Stream<Entry> entries() {
+            return Stream.iterate(0, i -> i < keys.length, i -> i + 1).map(this::entry);
+        }
+
+        // first position whose key is not less than the prefix
+        int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // object header and fields, then the byte array, one byte per char unless a char needs two
+        private static long stringBytes(String value) {
+            boolean latin1 = value.chars().allMatch(c -> c < 256);
+            long arrayBytes = 16 + (long) value.length() * (latin1 ? 1 : 2);
+            return 24 + ((arrayBytes + 7) & ~7);
+        }
+    }
+}
@@ -1,25 +1,43 @@
 package com.akerumort.libraryservice.services;
 
+import com.akerumort.common.web.ConditionalGet;
+import com.akerumort.libraryservice.dto.BatchItemResultDTO;
 import com.akerumort.libraryservice.dto.BookDTO;
-import com.akerumort.libraryservice.entities.Author;
+import com.akerumort.libraryservice.dto.BookSearchDTO;
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import com.akerumort.libraryservice.dto.PageDTO;
 import com.akerumort.libraryservice.entities.Book;
 import com.akerumort.libraryservice.exceptions.CustomException;
 import com.akerumort.libraryservice.mappers.BookMapper;
+import com.akerumort.libraryservice.projections.BookAuthorLink;
+import com.akerumort.libraryservice.projections.BookView;
+import com.akerumort.libraryservice.repos.BookAuthorLinkRepository;
 import com.akerumort.libraryservice.repos.BookRepository;
+import com.akerumort.libraryservice.repos.BookSpecifications;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -31,13 +49,79 @@ public class BookService {
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
     private final AuthorService authorService;
+    private final BookAuthorLinkRepository bookAuthorLinkRepository;
+    private final CacheEvictionService cacheEvictionService;
+    private final Validator validator;
+    private final DeleteJobService deleteJobService;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ChangeTrackingService changeTrackingService;
+
+    @Value("${library.batch.max-size:1000}")
+    private int maxBatchSize = 1000;
 
     public List<BookDTO> getAllBooks() {
         logger.info("Fetching all books");
         return bookRepository.findAll().stream().map(bookMapper::toDTO).collect(Collectors.toList());
     }
 
-    @Cacheable(value = "book", key = "#id")
+    // one query for the page and one for the author ids of all books on it
+    public PageDTO<BookDTO> getBooksPage(Pageable pageable) {
+        logger.info("Fetching books page: {}", pageable);
+        Page<BookView> page = bookRepository.findAllProjectedBy(pageable);
+
+        Map<Long, Set<Long>> authorIds = new HashMap<>();
+        if (page.hasContent()) {
+            List<Long> bookIds = page.getContent().stream().map(BookView::getId).collect(Collectors.toList());
+            for (BookAuthorLink link : bookRepository.findAuthorLinksByBookIds(bookIds)) {
+                authorIds.computeIfAbsent(link.getBookId(), id -> new HashSet<>()).add(link.getAuthorId());
+            }
+        }
+
+        List<BookDTO> books = page.getContent().stream()
+                .map(book -> bookMapper.toDTO(book, authorIds.getOrDefault(book.getId(), new HashSet<>())))
+                .collect(Collectors.toList());
+        return new PageDTO<>(books, page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+
+    // one query for the matching page and one for the author ids of its books
+    public PageDTO<BookDTO> searchBooks(BookSearchDTO search, Pageable pageable) {
+        logger.info("Searching books page {} with genre: {}, years: {}-{}, title: {}, author: {}", pageable,
+                search.getGenre(), search.getYearFrom(), search.getYearTo(), search.getTitle(), search.getAuthorId());
+        if (search.getYearFrom() != null && search.getYearTo() != null && search.getYearFrom() > search.getYearTo()) {
+            throw new CustomException("yearFrom must not be after yearTo.");
+        }
+        Page<Book> page = bookRepository.findAll(BookSpecifications.matching(search), pageable);
+
+        Map<Long, Set<Long>> authorIds = new HashMap<>();
+        if (page.hasContent()) {
+            List<Long> bookIds = page.getContent().stream().map(Book::getId).collect(Collectors.toList());
+            for (BookAuthorLink link : bookRepository.findAuthorLinksByBookIds(bookIds)) {
+                authorIds.computeIfAbsent(link.getBookId(), id -> new HashSet<>()).add(link.getAuthorId());
+            }
+        }
+
+        List<BookDTO> books = page.getContent().stream()
+                .map(book -> bookMapper.toDTO(book, authorIds.getOrDefault(book.getId(), new HashSet<>())))
+                .collect(Collectors.toList());
+        return new PageDTO<>(books, page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+
+    public String getBooksETag() {
+        return changeTrackingService.getListETag("book");
+    }
+
+    // search filters by author id through book_author, and every change to those links also counts as a
+    // change of the linked books, so the book counter alone covers the results
+    public String getBookSearchETag() {
+        return changeTrackingService.getListETag("book");
+    }
+
+    // null when the book does not exist
+    public String getBookETag(Long id) {
+        return ConditionalGet.strongETag(changeTrackingService.getVersion("book", id));
+    }
+
+    @Cacheable(value = "book", key = "#id", sync = true)
     public BookDTO getBookById(Long id) {
         logger.info("Fetching book with ID: {}", id);
         return bookMapper.toDTO(bookRepository.findById(id).orElse(null));
@@ -52,114 +136,245 @@ public class BookService {
             logger.error("A book must have at least one author.");
             throw new CustomException("A book must have at least one author.");
         }
+        Set<Long> authorIds = bookDTO.getAuthorIds();
+        checkAuthorsExist(authorIds);
 
-        Set<Author> authors = authorService.getAuthorsByIds(bookDTO.getAuthorIds().stream().collect(Collectors.toSet()));
+        Book book = bookMapper.toEntity(bookDTO);
+        book.setAuthors(new HashSet<>());
+        Book savedBook = bookRepository.saveAndFlush(book);
+        bookAuthorLinkRepository.insertLinks(authorIds.stream()
+                .map(authorId -> BookAuthorLink.of(savedBook.getId(), authorId))
+                .collect(Collectors.toList()));
+        cacheEvictionService.evictAfterCommit("author", authorIds);
+        changeTrackingService.listChanged("book");
+        changeTrackingService.changed("author", authorIds);
+        autocompleteIndex.indexBooks(List.of(savedBook));
 
-        if (authors.size() != bookDTO.getAuthorIds().size()) {
-            logger.error("One or more of the authors listed do not exist. " +
-                            "Provided IDs: {}, Existing IDs: {}", bookDTO.getAuthorIds(),
-                    authors.stream().map(Author::getId).collect(Collectors.toSet()));
-            throw new CustomException("One or more of the authors listed do not exist.");
+        logger.info("Book created successfully with ID: {}", savedBook.getId());
+        return toDTO(savedBook, authorIds);
+    }
+
+    // all author ids are checked with one query, the books are written as jdbc batches and the links in one statement,
+    // invalid items are reported in their result and do not stop the others
+    @Transactional
+    public List<BatchItemResultDTO<BookDTO>> createBooks(List<BookDTO> bookDTOs) {
+        logger.info("Creating {} books in a batch", bookDTOs.size());
+        checkBatchSize(bookDTOs);
+        Set<Long> existingAuthorIds = authorService.getExistingAuthorIds(collectAuthorIds(bookDTOs));
+
+        List<BatchItemResultDTO<BookDTO>> results = new ArrayList<>(Collections.nCopies(bookDTOs.size(), null));
+        Map<Integer, Book> books = new LinkedHashMap<>();
+        for (int i = 0; i < bookDTOs.size(); i++) {
+            String error = validate(bookDTOs.get(i), existingAuthorIds);
+            if (error != null) {
+                results.set(i, BatchItemResultDTO.failed(i, error));
+                continue;
+            }
+            Book book = bookMapper.toEntity(bookDTOs.get(i));
+            book.setId(null);
+            book.setAuthors(new HashSet<>());
+            books.put(i, book);
         }
+        bookRepository.saveAll(List.copyOf(books.values()));
+        bookRepository.flush();
 
-        Book book = bookMapper.toEntity(bookDTO);
-        book.setAuthors(authors);
-        Book savedBook = bookRepository.save(book);
+        List<BookAuthorLink> links = new ArrayList<>();
+        Set<Long> authorIds = new HashSet<>();
+        books.forEach((i, book) -> {
+            Set<Long> bookAuthorIds = bookDTOs.get(i).getAuthorIds();
+            bookAuthorIds.forEach(authorId -> links.add(BookAuthorLink.of(book.getId(), authorId)));
+            authorIds.addAll(bookAuthorIds);
+            BookDTO created = bookMapper.toDTO(book);
+            created.setAuthorIds(new HashSet<>(bookAuthorIds));
+            results.set(i, BatchItemResultDTO.created(i, created));
+        });
+        bookAuthorLinkRepository.insertLinks(links);
+        // cached authors list their book ids
+        cacheEvictionService.evictAfterCommit("author", authorIds);
+        changeTrackingService.listChanged("book");
+        changeTrackingService.changed("author", authorIds);
+        autocompleteIndex.indexBooks(books.values());
 
-        for (Author author : savedBook.getAuthors()) {
-            author.getBooks().add(savedBook);
-            authorService.saveAuthor(author);
+        logger.info("Created {} of {} books", books.size(), bookDTOs.size());
+        return results;
+    }
+
+    @Transactional
+    public List<BatchItemResultDTO<BookDTO>> updateBooks(List<BookDTO> bookDTOs) {
+        logger.info("Updating {} books in a batch", bookDTOs.size());
+        checkBatchSize(bookDTOs);
+        Set<Long> bookIds = bookDTOs.stream().map(BookDTO::getId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Book> books = bookRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, book -> book));
+        Set<Long> existingAuthorIds = authorService.getExistingAuthorIds(collectAuthorIds(bookDTOs));
+        Map<Long, Set<Long>> currentAuthorIds = new HashMap<>();
+        if (!bookIds.isEmpty()) {
+            for (BookAuthorLink link : bookRepository.findAuthorLinksByBookIds(bookIds)) {
+                currentAuthorIds.computeIfAbsent(link.getBookId(), id -> new HashSet<>()).add(link.getAuthorId());
+            }
         }
 
-        logger.info("Book created successfully with ID: {}", savedBook.getId());
-        return bookMapper.toDTO(savedBook);
+        List<BatchItemResultDTO<BookDTO>> results = new ArrayList<>(bookDTOs.size());
+        List<BookAuthorLink> addedLinks = new ArrayList<>();
+        List<BookAuthorLink> removedLinks = new ArrayList<>();
+        Set<Long> updatedBookIds = new HashSet<>();
+        for (int i = 0; i < bookDTOs.size(); i++) {
+            BookDTO bookDTO = bookDTOs.get(i);
+            Book book = bookDTO.getId() == null ? null : books.get(bookDTO.getId());
+            String error = book == null ? "Book with ID " + bookDTO.getId() + " does not exist."
+                    : validate(bookDTO, existingAuthorIds);
+            if (error != null) {
+                results.add(BatchItemResultDTO.failed(i, error));
+                continue;
+            }
+            book.setTitle(bookDTO.getTitle());
+            book.setGenre(bookDTO.getGenre());
+            book.setPublicationYear(bookDTO.getPublicationYear());
+
+            Set<Long> oldAuthorIds = currentAuthorIds.getOrDefault(book.getId(), Set.of());
+            Set<Long> newAuthorIds = bookDTO.getAuthorIds();
+            newAuthorIds.stream().filter(id -> !oldAuthorIds.contains(id))
+                    .forEach(id -> addedLinks.add(BookAuthorLink.of(book.getId(), id)));
+            oldAuthorIds.stream().filter(id -> !newAuthorIds.contains(id))
+                    .forEach(id -> removedLinks.add(BookAuthorLink.of(book.getId(), id)));
+            currentAuthorIds.put(book.getId(), new HashSet<>(newAuthorIds));
+            updatedBookIds.add(book.getId());
+
+            BookDTO updated = bookMapper.toDTO(book);
+            updated.setAuthorIds(new HashSet<>(newAuthorIds));
+            results.add(BatchItemResultDTO.updated(i, updated));
+        }
+        // the managed books are written by dirty checking, batched by hibernate.jdbc.batch_size
+        bookRepository.flush();
+        bookAuthorLinkRepository.deleteLinks(removedLinks);
+        bookAuthorLinkRepository.insertLinks(addedLinks);
+
+        cacheEvictionService.evictAfterCommit("book", updatedBookIds);
+        Set<Long> changedAuthorIds = new HashSet<>();
+        addedLinks.forEach(link -> changedAuthorIds.add(link.getAuthorId()));
+        removedLinks.forEach(link -> changedAuthorIds.add(link.getAuthorId()));
+        cacheEvictionService.evictAfterCommit("author", changedAuthorIds);
+        Map<Long, Long> versions = changeTrackingService.changed("book", updatedBookIds);
+        changeTrackingService.changed("author", changedAuthorIds);
+        results.stream().map(BatchItemResultDTO::getItem).filter(Objects::nonNull)
+                .forEach(updated -> updated.setVersion(versions.get(updated.getId())));
+        autocompleteIndex.indexBooks(updatedBookIds.stream().map(books::get).collect(Collectors.toList()));
+
+        logger.info("Updated {} of {} books", updatedBookIds.size(), bookDTOs.size());
+        return results;
+    }
+
+    private void checkBatchSize(List<BookDTO> bookDTOs) {
+        if (bookDTOs.size() > maxBatchSize) {
+            throw new CustomException("A batch can contain at most " + maxBatchSize + " books.");
+        }
     }
 
+    private static Set<Long> collectAuthorIds(List<BookDTO> bookDTOs) {
+        return bookDTOs.stream()
+                .map(BookDTO::getAuthorIds)
+                .filter(Objects::nonNull)
+                .flatMap(Set::stream)
+                .collect(Collectors.toSet());
+    }
+
+    // the same checks createBook makes, as a message instead of an exception
+    private String validate(BookDTO bookDTO, Set<Long> existingAuthorIds) {
+        Set<ConstraintViolation<BookDTO>> violations = validator.validate(bookDTO);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+        }
+        if (bookDTO.getAuthorIds().isEmpty()) {
+            return "A book must have at least one author.";
+        }
+        if (!existingAuthorIds.containsAll(bookDTO.getAuthorIds())) {
+            return "One or more of the authors listed do not exist.";
+        }
+        return null;
+    }
+
+    // the author links are changed by diff with a constant number of statements, however many authors the book has
     @Transactional
     @CachePut(value = "book", key = "#id")
     public BookDTO updateBook(Long id, BookDTO bookDTO) {
         logger.info("Updating book with ID: {}", id);
 
-        if (!bookRepository.existsById(id)) {
+        Book existingBook = bookRepository.findById(id).orElseThrow(() -> {
             logger.error("Book with ID {} does not exist.", id);
-            throw new CustomException("Book with ID " + id + " does not exist.");
-        }
-
-        Book existingBook = bookRepository.findById(id).orElseThrow(() ->
-                new CustomException("Book with ID " + id + " does not exist."));
+            return new CustomException("Book with ID " + id + " does not exist.");
+        });
 
         existingBook.setTitle(bookDTO.getTitle());
         existingBook.setGenre(bookDTO.getGenre());
         existingBook.setPublicationYear(bookDTO.getPublicationYear());
 
-        Set<Author> newAuthors = new HashSet<>();
-        if (bookDTO.getAuthorIds() != null && !bookDTO.getAuthorIds().isEmpty()) {
-            newAuthors = authorService.getAuthorsByIds(bookDTO.getAuthorIds()
-                    .stream().collect(Collectors.toSet()));
-            if (newAuthors.size() != bookDTO.getAuthorIds().size()) {
-                logger.error("One or more of the authors listed do not exist. " +
-                                "Provided IDs: {}, Existing IDs: {}", bookDTO.getAuthorIds(),
-                        newAuthors.stream().map(Author::getId).collect(Collectors.toSet()));
-                throw new CustomException("One or more of the authors listed do not exist.");
-            }
-        }
+        Set<Long> newAuthorIds = bookDTO.getAuthorIds() == null ? Set.of() : bookDTO.getAuthorIds();
+        checkAuthorsExist(newAuthorIds);
+        Set<Long> currentAuthorIds = bookRepository.findAuthorLinksByBookIds(List.of(id)).stream()
+                .map(BookAuthorLink::getAuthorId)
+                .collect(Collectors.toSet());
 
-        Set<Author> currentAuthors = existingBook.getAuthors();
+        List<BookAuthorLink> removedLinks = currentAuthorIds.stream()
+                .filter(authorId -> !newAuthorIds.contains(authorId))
+                .map(authorId -> BookAuthorLink.of(id, authorId))
+                .collect(Collectors.toList());
+        List<BookAuthorLink> addedLinks = newAuthorIds.stream()
+                .filter(authorId -> !currentAuthorIds.contains(authorId))
+                .map(authorId -> BookAuthorLink.of(id, authorId))
+                .collect(Collectors.toList());
+        bookAuthorLinkRepository.deleteLinks(removedLinks);
+        bookAuthorLinkRepository.insertLinks(addedLinks);
 
-        // удаляем книгу у старых авторов
-        for (Author author : currentAuthors) {
-            if (!newAuthors.contains(author)) {
-                author.getBooks().remove(existingBook);
-                authorService.saveAuthor(author);
-            }
-        }
-
-        existingBook.setAuthors(newAuthors);
-
-        // добавляем книгу к новым авторам
-        for (Author author : newAuthors) {
-            if (!author.getBooks().contains(existingBook)) {
-                author.getBooks().add(existingBook);
-                authorService.saveAuthor(author);
-            }
-        }
+        Set<Long> changedAuthorIds = new HashSet<>();
+        removedLinks.forEach(link -> changedAuthorIds.add(link.getAuthorId()));
+        addedLinks.forEach(link -> changedAuthorIds.add(link.getAuthorId()));
+        cacheEvictionService.evictAfterCommit("author", changedAuthorIds);
+        Map<Long, Long> versions = changeTrackingService.changed("book", List.of(id));
+        changeTrackingService.changed("author", changedAuthorIds);
 
         Book updatedBook = bookRepository.save(existingBook);
+        autocompleteIndex.indexBooks(List.of(updatedBook));
         logger.info("Book updated successfully with ID: {}", updatedBook.getId());
-        return bookMapper.toDTO(updatedBook);
+        BookDTO updatedBookDTO = toDTO(updatedBook, newAuthorIds);
+        updatedBookDTO.setVersion(versions.get(id));
+        return updatedBookDTO;
     }
 
     @Transactional
     @CacheEvict(value = "book", key = "#id")
     public void deleteBook(Long id) {
         logger.info("Deleting book with ID: {}", id);
-        Book book = bookRepository.findById(id).orElseThrow(() -> new CustomException("Book with ID " +
-                id + " does not exist."));
-
-        // удаляем книгу у авторов
-        for (Author author : book.getAuthors()) {
-            author.getBooks().remove(book);
-            authorService.saveAuthor(author);
+        if (!bookRepository.existsById(id)) {
+            throw new CustomException("Book with ID " + id + " does not exist.");
         }
 
+        Set<Long> authorIds = bookAuthorLinkRepository.deleteByBookIds(List.of(id));
         bookRepository.deleteById(id);
+        cacheEvictionService.evictAfterCommit("author", authorIds);
+        changeTrackingService.listChanged("book");
+        changeTrackingService.changed("author", authorIds);
+        autocompleteIndex.removeBooks(List.of(id));
         logger.info("Book deleted successfully.");
     }
 
-
-    @Transactional
-    @CacheEvict(value = "books", allEntries = true)
-    public void deleteAllBooks() {
+    public DeleteJobDTO deleteAllBooks() {
         logger.info("Deleting all books...");
+        return deleteJobService.start("book", bookRepository::count, bookRepository::deleteChunk);
+    }
 
-        List<Book> books = bookRepository.findAll();
-        for (Book book : books) {
-            for (Author author : book.getAuthors()) {
-                author.getBooks().remove(book);
-                authorService.saveAuthor(author);
-            }
+    private void checkAuthorsExist(Set<Long> authorIds) {
+        Set<Long> existingAuthorIds = authorService.getExistingAuthorIds(authorIds);
+        if (existingAuthorIds.size() != authorIds.size()) {
+            logger.error("One or more of the authors listed do not exist. " +
+                    "Provided IDs: {}, Existing IDs: {}", authorIds, existingAuthorIds);
+            throw new CustomException("One or more of the authors listed do not exist.");
         }
-        bookRepository.deleteAll();
-        logger.info("All books deleted successfully.");
+    }
+
+    // the authors collection is not refreshed by the link statements, so the ids are set explicitly
+    private BookDTO toDTO(Book book, Set<Long> authorIds) {
+        BookDTO bookDTO = bookMapper.toDTO(book);
+        bookDTO.setAuthorIds(new HashSet<>(authorIds));
+        return bookDTO;
     }
 }
@@ -0,0 +1,47 @@
+package com.akerumort.libraryservice.services;
+
+import com.akerumort.common.cache.TwoLevelCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+// Evicts the cached DTOs touched by a bulk write, for changes that @CacheEvict on a single key cannot describe.
+@Service
+@RequiredArgsConstructor
+public class CacheEvictionService {
+
+    private final CacheManager cacheManager;
+
+    // evicting before commit would let a concurrent reader cache the old value again
+    public void evictAfterCommit(String cacheName, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> keys = List.copyOf(ids);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(cacheName, keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(cacheName, keys);
+            }
+        });
+    }
+
+    private void evict(String cacheName, List<Long> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.evictAll(keys);
+        } else if (cache != null) {
+            keys.forEach(cache::evict);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.akerumort.libraryservice.services;
+
+import com.akerumort.common.web.ChangeCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Raises the version of every book or author whose representation a write changed, and counts the write
+// for the listings of its table. Versions are the strong ETags of single resources, counts the weak ETags of lists.
+@Service
+@RequiredArgsConstructor
+public class ChangeTrackingService {
+
+    private static final List<String> TABLES = List.of("book", "author");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeCounter changeCounter;
+
+    // returns the new version of each row that still exists
+    public Map<Long, Long> changed(String table, Collection<Long> ids) {
+        checkTable(table);
+        Map<Long, Long> versions = new HashMap<>();
+        if (ids.isEmpty()) {
+            return versions;
+        }
+        jdbcTemplate.query("UPDATE " + table + " SET version = version + 1 WHERE id = ANY(?) RETURNING id, version",
+                rs -> {
+                    versions.put(rs.getLong("id"), rs.getLong("version"));
+                },
+                (Object) ids.toArray(Long[]::new));
+        changeCounter.recordChange(table);
+        return versions;
+    }
+
+    // for inserts and deletes, which change the listings but no remaining row
+    public void listChanged(String table) {
+        checkTable(table);
+        changeCounter.recordChange(table);
+    }
+
+    public void allChanged(String table) {
+        checkTable(table);
+        jdbcTemplate.update("UPDATE " + table + " SET version = version + 1");
+        changeCounter.recordChange(table);
+    }
+
+    // the version alone, so a single resource is revalidated without loading it; null when the row does not exist
+    public Long getVersion(String table, Long id) {
+        checkTable(table);
+        List<Long> versions = jdbcTemplate.queryForList("SELECT version FROM " + table + " WHERE id = ?", Long.class, id);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    public String getListETag(String... tables) {
+        for (String table : tables) {
+            checkTable(table);
+        }
+        return changeCounter.weakETag(tables);
+    }
+
+    // table names are concatenated into the statements
+    private static void checkTable(String table) {
+        if (!TABLES.contains(table)) {
+            throw new IllegalArgumentException("Untracked table " + table);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.akerumort.libraryservice.services;
+
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongSupplier;
+
+// Empties a table in the background, one chunk per transaction, so no request or transaction
+// has to hold the whole table. Jobs are tracked in memory by the instance that runs them.
+@Service
+@RequiredArgsConstructor
+public class DeleteJobService {
+
+    private static final Logger logger = LogManager.getLogger(DeleteJobService.class);
+    private static final List<String> CACHES = List.of("book", "author");
+
+    private final CacheManager cacheManager;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ChangeTrackingService changeTrackingService;
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("delete-job-"));
+    private final Map<UUID, DeleteJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${library.delete-job.chunk-size:10000}")
+    private int chunkSize = 10000;
+
+    // finished jobs stay queryable for this long
+    @Value("${library.delete-job.retention:1h}")
+    private Duration retention = Duration.ofHours(1);
+
+    // a second request for the same table while a job runs gets the running job
+    public synchronized DeleteJobDTO start(String target, LongSupplier count, IntUnaryOperator deleteChunk) {
+        jobs.values().removeIf(job -> job.finishedAt != null
+                && job.finishedAt.isBefore(Instant.now().minus(retention)));
+        for (DeleteJob job : jobs.values()) {
+            if (job.target.equals(target) && job.status == DeleteJobDTO.Status.RUNNING) {
+                return job.toDTO();
+            }
+        }
+
+        DeleteJob job = new DeleteJob(UUID.randomUUID(), target);
+        jobs.put(job.id, job);
+        logger.info("Starting job {} to delete all rows of {}", job.id, target);
+        executor.execute(() -> run(job, count, deleteChunk));
+        return job.toDTO();
+    }
+
+    public DeleteJobDTO getJob(UUID id) {
+        DeleteJob job = jobs.get(id);
+        return job == null ? null : job.toDTO();
+    }
+
+    private void run(DeleteJob job, LongSupplier count, IntUnaryOperator deleteChunk) {
+        DeleteJobDTO.Status status = DeleteJobDTO.Status.FAILED;
+        try {
+            job.total = count.getAsLong();
+            int deleted;
+            do {
+                deleted = deleteChunk.applyAsInt(chunkSize);
+                job.deleted.addAndGet(deleted);
+            } while (deleted == chunkSize);
+            status = DeleteJobDTO.Status.COMPLETED;
+            logger.info("Job {} deleted {} rows of {}", job.id, job.deleted.get(), job.target);
+        } catch (RuntimeException e) {
+            logger.error("Job {} failed after deleting {} rows of {}: {}",
+                    job.id, job.deleted.get(), job.target, e.getMessage());
+            job.error = e.getMessage();
+        } finally {
+            // books and authors list each other's ids, so both caches are stale after either table is emptied
+            CACHES.stream().map(cacheManager::getCache).filter(Objects::nonNull).forEach(Cache::clear);
+            rebuildAutocompleteIndex(job);
+            recordChanges(job);
+            job.finishedAt = Instant.now();
+            job.status = status;
+        }
+    }
+
+    // a failed job may have deleted part of the table, so the index is reloaded rather than emptied
+    private void rebuildAutocompleteIndex(DeleteJob job) {
+        try {
+            autocompleteIndex.rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Job {} could not rebuild the autocomplete index: {}", job.id, e.getMessage());
+        }
+    }
+
+    private void recordChanges(DeleteJob job) {
+        try {
+            CACHES.forEach(changeTrackingService::allChanged);
+        } catch (RuntimeException e) {
+            logger.error("Job {} could not raise the book and author versions: {}", job.id, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class DeleteJob {
+        private final UUID id;
+        private final String target;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong deleted = new AtomicLong();
+        private volatile long total;
+        private volatile DeleteJobDTO.Status status = DeleteJobDTO.Status.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        DeleteJob(UUID id, String target) {
+            this.id = id;
+            this.target = target;
+        }
+
+        DeleteJobDTO toDTO() {
+            return new DeleteJobDTO(id, target, status, total, deleted.get(), startedAt, finishedAt, error);
+        }
+    }
+}
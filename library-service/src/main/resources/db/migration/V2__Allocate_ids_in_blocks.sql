@@ -0,0 +1,4 @@
+-- Hibernate takes ids from these sequences 50 at a time so inserts can be batched,
+-- the increment has to match allocationSize on Book and Author
+ALTER SEQUENCE book_id_seq INCREMENT BY 50;
+ALTER SEQUENCE author_id_seq INCREMENT BY 50;
@@ -0,0 +1,9 @@
+-- indexes behind GET /books/search, every filter can be answered without a sequential scan of book
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_book_genre_publication_year ON book (genre, publication_year);
+CREATE INDEX idx_book_publication_year ON book (publication_year);
+-- serves the case-insensitive title prefix match (ILIKE 'prefix%')
+CREATE INDEX idx_book_title_trgm ON book USING GIN (title gin_trgm_ops);
+-- the primary key of book_author leads with author_id, so lookups by book need their own index
+CREATE INDEX idx_book_author_book_id ON book_author (book_id);
@@ -0,0 +1,4 @@
+-- bumped by every write that changes what GET /books/{id} or /authors/{id} returns, including the other
+-- side's links, and sent as the strong ETag of that response
+ALTER TABLE book ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE author ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -4,6 +4,8 @@ import com.akerumort.libraryservice.dto.BookIdsDTO;
 import com.akerumort.libraryservice.exceptions.CustomException;
 import com.akerumort.libraryservice.services.AuthorService;
 import com.akerumort.libraryservice.dto.AuthorDTO;
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import com.akerumort.libraryservice.dto.PageDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -11,14 +13,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,7 +49,19 @@ public class AuthorControllerTest {
 
     @Test
     public void testGetAllAuthors() {
-        ResponseEntity<List<AuthorDTO>> response = authorController.getAllAuthors();
+        ResponseEntity<List<AuthorDTO>> response = authorController.getAllAuthors(request());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+    }
+
+    @Test
+    public void testGetAuthorsPage() {
+        Pageable pageable = PageRequest.of(0, 20);
+        when(authorService.getAuthorsPage(pageable))
+                .thenReturn(new PageDTO<>(Collections.emptyList(), 0, 20, 0, 0));
+
+        ResponseEntity<PageDTO<AuthorDTO>> response = authorController.getAuthorsPage(pageable, request());
+
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
     }
@@ -53,9 +74,10 @@ public class AuthorControllerTest {
         author.setLastName("Ivanov");
         author.setCountry("Russia");
 
+        when(authorService.getAuthorETag(1L)).thenReturn("\"0\"");
         when(authorService.getAuthorById(1L)).thenReturn(author);
 
-        ResponseEntity<AuthorDTO> response = authorController.getAuthorById(1L);
+        ResponseEntity<AuthorDTO> response = authorController.getAuthorById(1L, request());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(author.getId(), response.getBody().getId());
@@ -63,13 +85,14 @@ public class AuthorControllerTest {
 
     @Test
     public void testGetAuthorById_invalidId() {
-        when(authorService.getAuthorById(999L)).thenReturn(null);
+        clearInvocations(authorService);
 
-        ResponseEntity<AuthorDTO> response = authorController.getAuthorById(999L);
+        ResponseEntity<AuthorDTO> response = authorController.getAuthorById(999L, request());
 
         assertNotNull(response);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
+        verify(authorService, never()).getAuthorById(999L);
     }
 
     @Test
@@ -150,12 +173,15 @@ public class AuthorControllerTest {
 
     @Test
     public void testDeleteAllAuthors() {
-        doNothing().when(authorService).deleteAllAuthors();
+        DeleteJobDTO job = new DeleteJobDTO();
+        job.setId(UUID.randomUUID());
+        when(authorService.deleteAllAuthors()).thenReturn(job);
 
-        ResponseEntity<Void> response = authorController.deleteAllAuthors();
+        ResponseEntity<DeleteJobDTO> response = authorController.deleteAllAuthors();
 
         assertNotNull(response);
-        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/delete-jobs/" + job.getId(), response.getHeaders().getLocation().toString());
     }
 
     @Test
@@ -215,6 +241,57 @@ public class AuthorControllerTest {
         assertEquals("One or more of the books do not exist.", exception.getMessage());
     }
 
+    @Test
+    public void testGetAllAuthors_notModified() {
+        // the service mock is shared by all tests
+        clearInvocations(authorService);
+        when(authorService.getAuthorsETag()).thenReturn("W/\"42\"");
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/authors");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"42\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<List<AuthorDTO>> response = authorController.getAllAuthors(
+                new ServletWebRequest(servletRequest, servletResponse));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("W/\"42\"", servletResponse.getHeader(HttpHeaders.ETAG));
+        verify(authorService, never()).getAllAuthors();
+    }
+
+    @Test
+    public void testGetAuthorById_eTag() {
+        AuthorDTO author = new AuthorDTO();
+        author.setId(2L);
+        author.setVersion(4L);
+        when(authorService.getAuthorETag(2L)).thenReturn("\"4\"");
+        when(authorService.getAuthorById(2L)).thenReturn(author);
+
+        ResponseEntity<AuthorDTO> response = authorController.getAuthorById(2L, request());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        assertEquals("no-cache, public", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void testGetAuthorById_notModified() {
+        clearInvocations(authorService);
+        when(authorService.getAuthorETag(3L)).thenReturn("\"5\"");
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/authors/3");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"5\"");
+
+        ResponseEntity<AuthorDTO> response = authorController.getAuthorById(3L,
+                new ServletWebRequest(servletRequest, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verify(authorService, never()).getAuthorById(anyLong());
+    }
+
+    private static ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+
     @Configuration
     public static class TestConfig {
         @Bean
@@ -1,6 +1,8 @@
 package com.akerumort.libraryservice.controllers;
 
 import com.akerumort.libraryservice.dto.BookDTO;
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import com.akerumort.libraryservice.dto.PageDTO;
 import com.akerumort.libraryservice.services.BookService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,15 +11,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -39,7 +48,19 @@ public class BookControllerTest {
 
     @Test
     public void testGetAllBooks() {
-        ResponseEntity<List<BookDTO>> response = bookController.getAllBooks();
+        ResponseEntity<List<BookDTO>> response = bookController.getAllBooks(request());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+    }
+
+    @Test
+    public void testGetBooksPage() {
+        Pageable pageable = PageRequest.of(0, 20);
+        when(bookService.getBooksPage(pageable))
+                .thenReturn(new PageDTO<>(Collections.emptyList(), 0, 20, 0, 0));
+
+        ResponseEntity<PageDTO<BookDTO>> response = bookController.getBooksPage(pageable, request());
+
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
     }
@@ -55,9 +76,10 @@ public class BookControllerTest {
         authorIds.add(1L);
         book.setAuthorIds(authorIds);
 
+        when(bookService.getBookETag(1L)).thenReturn("\"0\"");
         when(bookService.getBookById(1L)).thenReturn(book);
 
-        ResponseEntity<BookDTO> response = bookController.getBookById(1L);
+        ResponseEntity<BookDTO> response = bookController.getBookById(1L, request());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(book.getId(), response.getBody().getId());
@@ -65,13 +87,14 @@ public class BookControllerTest {
 
     @Test
     public void testGetBookById_invalidId() {
-        when(bookService.getBookById(999L)).thenReturn(null);
+        clearInvocations(bookService);
 
-        ResponseEntity<BookDTO> response = bookController.getBookById(999L);
+        ResponseEntity<BookDTO> response = bookController.getBookById(999L, request());
 
         assertNotNull(response);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
+        verify(bookService, never()).getBookById(999L);
     }
 
     @Test
@@ -161,12 +184,66 @@ public class BookControllerTest {
 
     @Test
     public void testDeleteAllBooks() {
-        doNothing().when(bookService).deleteAllBooks();
+        DeleteJobDTO job = new DeleteJobDTO();
+        job.setId(UUID.randomUUID());
+        when(bookService.deleteAllBooks()).thenReturn(job);
 
-        ResponseEntity<Void> response = bookController.deleteAllBooks();
+        ResponseEntity<DeleteJobDTO> response = bookController.deleteAllBooks();
 
         assertNotNull(response);
-        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/delete-jobs/" + job.getId(), response.getHeaders().getLocation().toString());
+    }
+
+    @Test
+    public void testGetAllBooks_notModified() {
+        // the service mock is shared by all tests
+        clearInvocations(bookService);
+        when(bookService.getBooksETag()).thenReturn("W/\"42\"");
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/books");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"42\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<List<BookDTO>> response = bookController.getAllBooks(
+                new ServletWebRequest(servletRequest, servletResponse));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("W/\"42\"", servletResponse.getHeader(HttpHeaders.ETAG));
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    public void testGetBookById_eTag() {
+        BookDTO book = new BookDTO();
+        book.setId(2L);
+        book.setVersion(4L);
+        when(bookService.getBookETag(2L)).thenReturn("\"4\"");
+        when(bookService.getBookById(2L)).thenReturn(book);
+
+        ResponseEntity<BookDTO> response = bookController.getBookById(2L, request());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        assertEquals("no-cache, public", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void testGetBookById_notModified() {
+        clearInvocations(bookService);
+        when(bookService.getBookETag(3L)).thenReturn("\"5\"");
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/books/3");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"5\"");
+
+        ResponseEntity<BookDTO> response = bookController.getBookById(3L,
+                new ServletWebRequest(servletRequest, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verify(bookService, never()).getBookById(anyLong());
+    }
+
+    private static ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
     }
 
     @Configuration
@@ -0,0 +1,149 @@
+package com.akerumort.libraryservice.repos;
+
+import com.akerumort.libraryservice.dto.BookSearchDTO;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs every combination of search filters against postgres with the flyway migrations applied and checks
+// that the planner answers it with the index meant for those filters rather than a sequential scan of book.
+// Criteria values are inlined, so the plan is the one postgres picks for the actual values. Needs docker,
+// skipped without it.
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.akerumort.libraryservice.repos.BookSearchQueryPlanTest$RecordingStatementInspector",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class BookSearchQueryPlanTest {
+
+    private static final int GENRE = 1;
+    private static final int YEAR_FROM = 2;
+    private static final int YEAR_TO = 4;
+    private static final int TITLE = 8;
+    private static final int AUTHOR = 16;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // enough rows that a sequential scan costs more than any selective index; the years follow the physical
+    // order of the rows like they would for books added over time, and every filter value below is selective
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO author (id, first_name, last_name, country) " +
+                "SELECT i, 'First' || i, 'Last' || i, 'Country' FROM generate_series(1, 1000) i");
+        jdbcTemplate.update("INSERT INTO book (id, title, genre, publication_year) " +
+                "SELECT i, md5(i::text), 'Genre' || (i % 1000), 1900 + (i - 1) * 125 / 100000 " +
+                "FROM generate_series(1, 100000) i");
+        jdbcTemplate.update("INSERT INTO book_author (author_id, book_id) " +
+                "SELECT 1 + i % 1000, i FROM generate_series(1, 100000) i");
+        jdbcTemplate.execute("ANALYZE author");
+        jdbcTemplate.execute("ANALYZE book");
+        jdbcTemplate.execute("ANALYZE book_author");
+        RecordingStatementInspector.statements.clear();
+    }
+
+    @ParameterizedTest(name = "filters {0}")
+    @MethodSource("filterCombinations")
+    public void testSearchUsesIndexes(int filters) {
+        bookRepository.findAll(BookSpecifications.matching(search(filters)));
+
+        assertEquals(1, RecordingStatementInspector.statements.size());
+        String plan = explain(RecordingStatementInspector.statements.get(0));
+        assertFalse(plan.contains("Seq Scan"), plan);
+        List<String> indexes = expectedIndexes(filters);
+        assertTrue(indexes.stream().anyMatch(plan::contains), "expected one of " + indexes + " in\n" + plan);
+    }
+
+    // the authors of a page of books are loaded by book id, which the primary key of book_author cannot serve
+    @Test
+    public void testAuthorLookupByBookUsesIndex() {
+        String plan = explain("SELECT book_id, author_id FROM book_author WHERE book_id IN (1, 2, 3, 4, 5)");
+
+        assertTrue(plan.contains("idx_book_author_book_id"), plan);
+    }
+
+    // every non-empty subset of the five filters, one bit per filter
+    static Stream<Integer> filterCombinations() {
+        return IntStream.range(1, 32).boxed();
+    }
+
+    private static BookSearchDTO search(int filters) {
+        BookSearchDTO search = new BookSearchDTO();
+        if ((filters & GENRE) != 0) {
+            search.setGenre("Genre7");
+        }
+        if ((filters & YEAR_FROM) != 0) {
+            search.setYearFrom(2024);
+        }
+        if ((filters & YEAR_TO) != 0) {
+            search.setYearTo(1900);
+        }
+        if ((filters & TITLE) != 0) {
+            search.setTitle("abcdef");
+        }
+        if ((filters & AUTHOR) != 0) {
+            search.setAuthorId(42L);
+        }
+        return search;
+    }
+
+    // the indexes that can drive a search with these filters, the planner uses the most selective of them
+    private static List<String> expectedIndexes(int filters) {
+        List<String> indexes = new ArrayList<>();
+        if ((filters & GENRE) != 0) {
+            indexes.add("idx_book_genre_publication_year");
+        }
+        if ((filters & (YEAR_FROM | YEAR_TO)) != 0) {
+            indexes.add("idx_book_publication_year");
+        }
+        if ((filters & TITLE) != 0) {
+            indexes.add("idx_book_title_trgm");
+        }
+        if ((filters & AUTHOR) != 0) {
+            // books by author come from the primary key, which leads with author_id
+            indexes.add("book_author_pkey");
+            indexes.add("idx_book_author_book_id");
+        }
+        return indexes;
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
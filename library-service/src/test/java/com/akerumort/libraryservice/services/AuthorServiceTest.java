@@ -1,17 +1,26 @@
 package com.akerumort.libraryservice.services;
 
 import com.akerumort.libraryservice.dto.AuthorDTO;
+import com.akerumort.libraryservice.dto.BatchItemResultDTO;
+import com.akerumort.libraryservice.dto.PageDTO;
 import com.akerumort.libraryservice.entities.Author;
 import com.akerumort.libraryservice.entities.Book;
 import com.akerumort.libraryservice.mappers.AuthorMapper;
+import com.akerumort.libraryservice.projections.AuthorView;
+import com.akerumort.libraryservice.projections.BookAuthorLink;
 import com.akerumort.libraryservice.repos.AuthorRepository;
+import com.akerumort.libraryservice.repos.BookAuthorLinkRepository;
 import com.akerumort.libraryservice.repos.BookRepository;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.util.*;
 
@@ -32,6 +41,21 @@ public class AuthorServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookAuthorLinkRepository bookAuthorLinkRepository;
+
+    @Mock
+    private CacheEvictionService cacheEvictionService;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
+    @Mock
+    private ChangeTrackingService changeTrackingService;
+
     @InjectMocks
     private AuthorService authorService;
 
@@ -65,6 +89,22 @@ public class AuthorServiceTest {
         verify(authorRepository, times(1)).findAll();
     }
 
+    @Test
+    public void testGetAuthorsPage() {
+        AuthorView view = mock(AuthorView.class);
+        when(view.getId()).thenReturn(1L);
+        Pageable pageable = PageRequest.of(0, 20);
+
+        when(authorRepository.findAllProjectedBy(pageable)).thenReturn(new PageImpl<>(List.of(view), pageable, 1));
+        when(authorRepository.findBookLinksByAuthorIds(List.of(1L))).thenReturn(Collections.emptyList());
+        when(authorMapper.toDTO(view, Collections.emptySet())).thenReturn(authorDTO);
+
+        PageDTO<AuthorDTO> result = authorService.getAuthorsPage(pageable);
+
+        assertEquals(1, result.getContent().size());
+        verify(authorRepository, never()).findAll();
+    }
+
     @Test
     public void testGetAuthorById() {
         when(authorRepository.findById(anyLong())).thenReturn(Optional.of(author));
@@ -90,17 +130,11 @@ public class AuthorServiceTest {
 
     @Test
     public void testUpdateAuthor() {
-        Set<Long> bookIds = new HashSet<>(Collections.singletonList(1L));
-        authorDTO.setBookIds(bookIds);
-
-        Book book = new Book();
-        book.setId(1L);
-        Set<Book> books = new HashSet<>(Collections.singletonList(book));
-        author.setBooks(books);
+        authorDTO.setBookIds(Set.of(1L));
 
-        when(authorRepository.existsById(anyLong())).thenReturn(true); // проверка на существование id
         when(authorRepository.findById(anyLong())).thenReturn(Optional.of(author));
-        when(bookRepository.findAllById(anySet())).thenReturn(new ArrayList<>(books));
+        when(bookRepository.findExistingIds(Set.of(1L))).thenReturn(Set.of(1L));
+        when(authorRepository.findBookLinksByAuthorIds(List.of(1L))).thenReturn(List.of(BookAuthorLink.of(2L, 1L)));
         when(authorRepository.save(any(Author.class))).thenReturn(author);
         when(authorMapper.toDTO(any(Author.class))).thenReturn(authorDTO);
 
@@ -108,33 +142,77 @@ public class AuthorServiceTest {
 
         assertNotNull(result);
         verify(authorRepository, times(1)).save(any(Author.class));
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookAuthorLinkRepository, times(1)).deleteLinks(List.of(BookAuthorLink.of(2L, 1L)));
+        verify(bookAuthorLinkRepository, times(1)).insertLinks(List.of(BookAuthorLink.of(1L, 1L)));
+        verify(cacheEvictionService, times(1)).evictAfterCommit("book", Set.of(1L, 2L));
+    }
+
+    @Test
+    public void testCreateAuthors() {
+        authorDTO.setId(null);
+        authorDTO.setBookIds(Set.of(1L));
+        AuthorDTO withoutBooks = new AuthorDTO();
+        Author authorWithoutBooks = new Author();
+
+        when(bookRepository.findExistingIds(Set.of(1L))).thenReturn(Set.of(1L));
+        when(authorMapper.toEntity(authorDTO)).thenReturn(author);
+        when(authorMapper.toEntity(withoutBooks)).thenReturn(authorWithoutBooks);
+        when(authorMapper.toDTO(any(Author.class))).thenAnswer(invocation -> new AuthorDTO());
+        when(authorRepository.saveAll(List.of(author, authorWithoutBooks))).thenAnswer(invocation -> {
+            author.setId(1L);
+            authorWithoutBooks.setId(2L);
+            return List.of(author, authorWithoutBooks);
+        });
+
+        List<BatchItemResultDTO<AuthorDTO>> results = authorService.createAuthors(List.of(authorDTO, withoutBooks));
+
+        assertEquals(BatchItemResultDTO.Status.CREATED, results.get(0).getStatus());
+        assertEquals(Set.of(1L), results.get(0).getItem().getBookIds());
+        assertEquals(BatchItemResultDTO.Status.CREATED, results.get(1).getStatus());
+        verify(authorRepository, times(1)).saveAll(List.of(author, authorWithoutBooks));
+        verify(bookAuthorLinkRepository, times(1)).insertLinks(List.of(BookAuthorLink.of(1L, 1L)));
+        verify(cacheEvictionService, times(1)).evictAfterCommit("book", Set.of(1L));
+    }
+
+    @Test
+    public void testUpdateAuthors() {
+        authorDTO.setBookIds(Set.of(1L, 2L));
+
+        when(authorRepository.findAllById(Set.of(1L))).thenReturn(List.of(author));
+        when(bookRepository.findExistingIds(Set.of(1L, 2L))).thenReturn(Set.of(1L));
+
+        List<BatchItemResultDTO<AuthorDTO>> results = authorService.updateAuthors(List.of(authorDTO));
+
+        assertEquals(BatchItemResultDTO.Status.FAILED, results.get(0).getStatus());
+        assertEquals("One or more of the books listed do not exist.", results.get(0).getError());
+        verify(bookAuthorLinkRepository, times(1)).insertLinks(List.of());
+        verify(cacheEvictionService, times(1)).evictAfterCommit("author", Set.of());
     }
 
     @Test
     public void testDeleteAuthor() {
         when(authorRepository.existsById(anyLong())).thenReturn(true);
+        when(bookAuthorLinkRepository.deleteByAuthorIds(List.of(1L))).thenReturn(Set.of(3L));
         doNothing().when(authorRepository).deleteById(anyLong());
 
         authorService.deleteAuthor(1L);
 
         verify(authorRepository, times(1)).deleteById(1L);
+        verify(cacheEvictionService, times(1)).evictAfterCommit("book", Set.of(3L));
     }
 
     @Test
     public void testAddBooksToAuthor() {
-        Book book = new Book();
-        book.setId(1L);
-        Set<Book> books = new HashSet<>(Collections.singletonList(book));
-        author.setBooks(books);
-
         when(authorRepository.findById(anyLong())).thenReturn(Optional.of(author));
-        when(bookRepository.findAllById(anySet())).thenReturn(new ArrayList<>(books));
-        when(authorRepository.save(any(Author.class))).thenReturn(author);
+        when(bookRepository.findExistingIds(Set.of(1L, 2L))).thenReturn(Set.of(1L, 2L));
+        when(authorRepository.findBookLinksByAuthorIds(List.of(1L))).thenReturn(List.of(BookAuthorLink.of(1L, 1L)));
         when(authorMapper.toDTO(any(Author.class))).thenReturn(authorDTO);
 
-        AuthorDTO result = authorService.addBooksToAuthor(1L, new HashSet<>(Collections.singletonList(1L)));
+        AuthorDTO result = authorService.addBooksToAuthor(1L, Set.of(1L, 2L));
 
-        assertNotNull(result);
-        verify(authorRepository, times(1)).save(any(Author.class));
+        assertEquals(Set.of(1L, 2L), result.getBookIds());
+        verify(bookAuthorLinkRepository, times(1)).insertLinks(List.of(BookAuthorLink.of(2L, 1L)));
+        verify(cacheEvictionService, times(1)).evictAfterCommit("book", Set.of(2L));
     }
 }
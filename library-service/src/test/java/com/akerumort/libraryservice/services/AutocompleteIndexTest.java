@@ -0,0 +1,136 @@
+package com.akerumort.libraryservice.services;
+
+import com.akerumort.libraryservice.dto.AutocompleteSuggestionDTO;
+import com.akerumort.libraryservice.entities.Author;
+import com.akerumort.libraryservice.entities.Book;
+import com.akerumort.libraryservice.exceptions.CustomException;
+import com.akerumort.libraryservice.projections.AuthorView;
+import com.akerumort.libraryservice.projections.BookView;
+import com.akerumort.libraryservice.repos.AuthorRepository;
+import com.akerumort.libraryservice.repos.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AutocompleteIndexTest {
+
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AutocompleteIndex autocompleteIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.streamAllProjectedBy()).thenReturn(Stream.of(
+                bookView(1L, "War and Peace"),
+                bookView(2L, "Warlock"),
+                bookView(3L, "Anna Karenina")));
+        when(authorRepository.streamAllProjectedBy()).thenReturn(Stream.of(
+                authorView(1L, "Leo", "Tolstoy"),
+                authorView(2L, "Lev", "Warsky")));
+        autocompleteIndex = new AutocompleteIndex(bookRepository, authorRepository, transactionManager, meterRegistry);
+        autocompleteIndex.init();
+    }
+
+    @Test
+    public void testFindsTitlesAndNamesByPrefixIgnoringCase() {
+        assertEquals(List.of("War and Peace", "Warlock", "Lev Warsky"), texts(autocompleteIndex.search("WAR", 10)));
+        assertEquals(List.of("Leo Tolstoy"), texts(autocompleteIndex.search("tolst", 10)));
+        assertEquals(List.of("Leo Tolstoy"), texts(autocompleteIndex.search("leo t", 10)));
+        assertEquals(List.of("Leo Tolstoy", "Lev Warsky"), texts(autocompleteIndex.search("le", 10)));
+        assertEquals(List.of("War and Peace"), texts(autocompleteIndex.search("war", 1)));
+        assertTrue(autocompleteIndex.search("  ", 10).isEmpty());
+
+        AutocompleteSuggestionDTO author = autocompleteIndex.search("tolstoy", 10).get(0);
+        assertEquals(AutocompleteSuggestionDTO.Type.AUTHOR, author.getType());
+        assertEquals(1L, author.getId());
+    }
+
+    @Test
+    public void testAppliesWritesOnTopOfTheScan() {
+        autocompleteIndex.indexBooks(List.of(book(2L, "Resurrection"), book(4L, "Warm Bodies")));
+        autocompleteIndex.indexAuthors(List.of(author(3L, "Fyodor", "Dostoevsky")));
+        autocompleteIndex.removeBooks(List.of(1L));
+        autocompleteIndex.removeAuthors(List.of(2L));
+
+        assertEquals(List.of("Warm Bodies"), texts(autocompleteIndex.search("war", 10)));
+        assertEquals(List.of("Resurrection"), texts(autocompleteIndex.search("res", 10)));
+        assertEquals(List.of("Fyodor Dostoevsky"), texts(autocompleteIndex.search("dost", 10)));
+    }
+
+    @Test
+    public void testCompactionKeepsTheSameResults() {
+        ReflectionTestUtils.setField(autocompleteIndex, "compactionThreshold", 2);
+
+        autocompleteIndex.indexBooks(List.of(book(4L, "Warm Bodies")));
+        autocompleteIndex.removeBooks(List.of(1L));
+        autocompleteIndex.indexBooks(List.of(book(5L, "Anna and the King")));
+
+        assertEquals(List.of("Warlock", "Warm Bodies", "Lev Warsky"), texts(autocompleteIndex.search("war", 10)));
+        assertEquals(List.of("Anna and the King", "Anna Karenina"), texts(autocompleteIndex.search("anna", 10)));
+    }
+
+    @Test
+    public void testRejectsLimitOutOfRange() {
+        assertThrows(CustomException.class, () -> autocompleteIndex.search("war", 0));
+        assertThrows(CustomException.class, () -> autocompleteIndex.search("war", 51));
+    }
+
+    @Test
+    public void testReportsSizeAsMetrics() {
+        // three titles and two keys for each author
+        assertEquals(7, meterRegistry.get("library.autocomplete.entries").gauge().value());
+        assertTrue(meterRegistry.get("library.autocomplete.memory").gauge().value() > 0);
+    }
+
+    private List<String> texts(List<AutocompleteSuggestionDTO> suggestions) {
+        return suggestions.stream().map(AutocompleteSuggestionDTO::getText).toList();
+    }
+
+    private BookView bookView(Long id, String title) {
+        return projectionFactory.createProjection(BookView.class, Map.of("id", id, "title", title));
+    }
+
+    private AuthorView authorView(Long id, String firstName, String lastName) {
+        return projectionFactory.createProjection(AuthorView.class,
+                Map.of("id", id, "firstName", firstName, "lastName", lastName));
+    }
+
+    private Book book(Long id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        return book;
+    }
+
+    private Author author(Long id, String firstName, String lastName) {
+        Author author = new Author();
+        author.setId(id);
+        author.setFirstName(firstName);
+        author.setLastName(lastName);
+        return author;
+    }
+}
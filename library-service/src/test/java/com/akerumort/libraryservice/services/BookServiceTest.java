@@ -1,22 +1,35 @@
 package com.akerumort.libraryservice.services;
 
+import com.akerumort.libraryservice.dto.BatchItemResultDTO;
 import com.akerumort.libraryservice.dto.BookDTO;
+import com.akerumort.libraryservice.dto.BookSearchDTO;
+import com.akerumort.libraryservice.dto.PageDTO;
 import com.akerumort.libraryservice.entities.Author;
 import com.akerumort.libraryservice.entities.Book;
+import com.akerumort.libraryservice.exceptions.CustomException;
 import com.akerumort.libraryservice.mappers.BookMapper;
+import com.akerumort.libraryservice.projections.BookAuthorLink;
+import com.akerumort.libraryservice.projections.BookView;
+import com.akerumort.libraryservice.repos.BookAuthorLinkRepository;
 import com.akerumort.libraryservice.repos.BookRepository;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +44,21 @@ public class BookServiceTest {
     @Mock
     private AuthorService authorService;
 
+    @Mock
+    private BookAuthorLinkRepository bookAuthorLinkRepository;
+
+    @Mock
+    private CacheEvictionService cacheEvictionService;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
+    @Mock
+    private ChangeTrackingService changeTrackingService;
+
     @InjectMocks
     private BookService bookService;
 
@@ -64,6 +92,56 @@ public class BookServiceTest {
         verify(bookRepository, times(1)).findAll();
     }
 
+    @Test
+    public void testGetBooksPage() {
+        BookView view = mock(BookView.class);
+        when(view.getId()).thenReturn(1L);
+        BookAuthorLink link = mock(BookAuthorLink.class);
+        when(link.getBookId()).thenReturn(1L);
+        when(link.getAuthorId()).thenReturn(2L);
+        Pageable pageable = PageRequest.of(0, 20);
+
+        when(bookRepository.findAllProjectedBy(pageable)).thenReturn(new PageImpl<>(List.of(view), pageable, 1));
+        when(bookRepository.findAuthorLinksByBookIds(List.of(1L))).thenReturn(List.of(link));
+        when(bookMapper.toDTO(view, Set.of(2L))).thenReturn(bookDTO);
+
+        PageDTO<BookDTO> result = bookService.getBooksPage(pageable);
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(1, result.getTotalElements());
+        verify(bookRepository, times(1)).findAuthorLinksByBookIds(List.of(1L));
+        verify(bookRepository, never()).findAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSearchBooks() {
+        BookSearchDTO search = new BookSearchDTO();
+        search.setGenre("Programming");
+        search.setTitle("Java");
+        Pageable pageable = PageRequest.of(0, 20);
+
+        when(bookRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(book), pageable, 1));
+        when(bookRepository.findAuthorLinksByBookIds(List.of(1L))).thenReturn(List.of(BookAuthorLink.of(1L, 2L)));
+        when(bookMapper.toDTO(book, Set.of(2L))).thenReturn(bookDTO);
+
+        PageDTO<BookDTO> result = bookService.searchBooks(search, pageable);
+
+        assertEquals(List.of(bookDTO), result.getContent());
+        verify(bookMapper, never()).toDTO(any(Book.class));
+    }
+
+    @Test
+    public void testSearchBooksRejectsInvertedYearRange() {
+        BookSearchDTO search = new BookSearchDTO();
+        search.setYearFrom(2020);
+        search.setYearTo(2000);
+
+        assertThrows(CustomException.class, () -> bookService.searchBooks(search, PageRequest.of(0, 20)));
+        verifyNoInteractions(bookRepository);
+    }
+
     @Test
     public void testGetBookById() {
         when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
@@ -77,54 +155,118 @@ public class BookServiceTest {
 
     @Test
     public void testCreateBook() {
-        Set<Long> authorIds = new HashSet<>(Collections.singletonList(1L));
+        Set<Long> authorIds = Set.of(1L, 2L);
         bookDTO.setAuthorIds(authorIds);
 
-        Author author = new Author();
-        author.setId(1L);
-        Set<Author> authors = new HashSet<>(Collections.singletonList(author));
-        book.setAuthors(authors);
-
-        when(authorService.getAuthorsByIds(anySet())).thenReturn(authors);
-        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        when(authorService.getExistingAuthorIds(authorIds)).thenReturn(authorIds);
         when(bookMapper.toEntity(any(BookDTO.class))).thenReturn(book);
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(book);
         when(bookMapper.toDTO(any(Book.class))).thenReturn(bookDTO);
 
         BookDTO result = bookService.createBook(bookDTO);
 
-        assertNotNull(result);
-        verify(bookRepository, times(1)).save(any(Book.class));
+        assertEquals(authorIds, result.getAuthorIds());
+        verify(bookRepository, times(1)).saveAndFlush(any(Book.class));
+        verify(bookAuthorLinkRepository, times(1)).insertLinks(argThat(links -> links.size() == 2));
+        verify(cacheEvictionService, times(1)).evictAfterCommit("author", authorIds);
     }
 
     @Test
     public void testUpdateBook() {
-        Set<Long> authorIds = new HashSet<>(Collections.singletonList(1L));
-        bookDTO.setAuthorIds(authorIds);
-
-        Author author = new Author();
-        author.setId(1L);
-        Set<Author> authors = new HashSet<>(Collections.singletonList(author));
-        book.setAuthors(authors);
+        bookDTO.setAuthorIds(Set.of(1L, 3L));
 
-        when(bookRepository.existsById(anyLong())).thenReturn(true); // обязательно добавлять
         when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
-        when(authorService.getAuthorsByIds(anySet())).thenReturn(authors);
+        when(authorService.getExistingAuthorIds(Set.of(1L, 3L))).thenReturn(Set.of(1L, 3L));
+        when(bookRepository.findAuthorLinksByBookIds(List.of(1L)))
+                .thenReturn(List.of(BookAuthorLink.of(1L, 1L), BookAuthorLink.of(1L, 2L)));
         when(bookRepository.save(any(Book.class))).thenReturn(book);
         when(bookMapper.toDTO(any(Book.class))).thenReturn(bookDTO);
+        when(changeTrackingService.changed("book", List.of(1L))).thenReturn(Map.of(1L, 5L));
 
         BookDTO result = bookService.updateBook(1L, bookDTO);
 
         assertNotNull(result, "Expected result to be not null");
+        assertEquals(5L, result.getVersion());
         verify(bookRepository, times(1)).save(any(Book.class));
+        verify(bookAuthorLinkRepository, times(1)).deleteLinks(List.of(BookAuthorLink.of(1L, 2L)));
+        verify(bookAuthorLinkRepository, times(1)).insertLinks(List.of(BookAuthorLink.of(1L, 3L)));
+        verify(cacheEvictionService, times(1)).evictAfterCommit("author", Set.of(2L, 3L));
+        verify(changeTrackingService, times(1)).changed("author", Set.of(2L, 3L));
+    }
+
+    @Test
+    public void testUpdateBookWithUnknownAuthor() {
+        bookDTO.setAuthorIds(Set.of(1L, 3L));
+
+        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
+        when(authorService.getExistingAuthorIds(Set.of(1L, 3L))).thenReturn(Set.of(1L));
+
+        assertThrows(CustomException.class, () -> bookService.updateBook(1L, bookDTO));
+        verifyNoInteractions(bookAuthorLinkRepository);
+    }
+
+    @Test
+    public void testCreateBooks() {
+        bookDTO.setId(null);
+        bookDTO.setAuthorIds(Set.of(1L));
+        BookDTO withUnknownAuthor = new BookDTO();
+        withUnknownAuthor.setAuthorIds(Set.of(2L));
+        BookDTO created = new BookDTO();
+        created.setId(1L);
+
+        when(authorService.getExistingAuthorIds(Set.of(1L, 2L))).thenReturn(Set.of(1L));
+        when(bookMapper.toEntity(bookDTO)).thenReturn(book);
+        when(bookMapper.toDTO(book)).thenReturn(created);
+        when(bookRepository.saveAll(List.of(book))).thenAnswer(invocation -> {
+            book.setId(1L);
+            return List.of(book);
+        });
+
+        List<BatchItemResultDTO<BookDTO>> results = bookService.createBooks(List.of(bookDTO, withUnknownAuthor));
+
+        assertEquals(BatchItemResultDTO.Status.CREATED, results.get(0).getStatus());
+        assertEquals(Set.of(1L), results.get(0).getItem().getAuthorIds());
+        assertEquals(BatchItemResultDTO.Status.FAILED, results.get(1).getStatus());
+        assertEquals("One or more of the authors listed do not exist.", results.get(1).getError());
+        verify(bookRepository, times(1)).saveAll(List.of(book));
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookAuthorLinkRepository, times(1)).insertLinks(List.of(BookAuthorLink.of(1L, 1L)));
+        verify(cacheEvictionService, times(1)).evictAfterCommit("author", Set.of(1L));
+    }
+
+    @Test
+    public void testUpdateBooks() {
+        bookDTO.setAuthorIds(Set.of(1L, 3L));
+        BookDTO missing = new BookDTO();
+        missing.setId(5L);
+        missing.setAuthorIds(Set.of(1L));
+
+        when(bookRepository.findAllById(Set.of(1L, 5L))).thenReturn(List.of(book));
+        when(authorService.getExistingAuthorIds(Set.of(1L, 3L))).thenReturn(Set.of(1L, 3L));
+        when(bookRepository.findAuthorLinksByBookIds(Set.of(1L, 5L)))
+                .thenReturn(List.of(BookAuthorLink.of(1L, 1L), BookAuthorLink.of(1L, 2L)));
+        when(bookMapper.toDTO(book)).thenReturn(new BookDTO());
+
+        List<BatchItemResultDTO<BookDTO>> results = bookService.updateBooks(List.of(bookDTO, missing));
+
+        assertEquals(BatchItemResultDTO.Status.UPDATED, results.get(0).getStatus());
+        assertEquals(BatchItemResultDTO.Status.FAILED, results.get(1).getStatus());
+        assertEquals("Book with ID 5 does not exist.", results.get(1).getError());
+        verify(bookAuthorLinkRepository, times(1)).deleteLinks(List.of(BookAuthorLink.of(1L, 2L)));
+        verify(bookAuthorLinkRepository, times(1)).insertLinks(List.of(BookAuthorLink.of(1L, 3L)));
+        verify(cacheEvictionService, times(1)).evictAfterCommit("book", Set.of(1L));
+        verify(cacheEvictionService, times(1)).evictAfterCommit("author", Set.of(2L, 3L));
     }
 
     @Test
     public void testDeleteBook() {
         when(bookRepository.existsById(anyLong())).thenReturn(true);
+        when(bookAuthorLinkRepository.deleteByBookIds(List.of(1L))).thenReturn(Set.of(2L));
         doNothing().when(bookRepository).deleteById(anyLong());
 
         bookService.deleteBook(1L);
 
         verify(bookRepository, times(1)).deleteById(1L);
+        verify(cacheEvictionService, times(1)).evictAfterCommit("author", Set.of(2L));
     }
 }
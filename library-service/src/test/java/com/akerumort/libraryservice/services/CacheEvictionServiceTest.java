@@ -0,0 +1,47 @@
+package com.akerumort.libraryservice.services;
+
+import com.akerumort.common.cache.TwoLevelCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheEvictionServiceTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @InjectMocks
+    private CacheEvictionService cacheEvictionService;
+
+    @Test
+    public void testTwoLevelCacheEvictsAllKeysAtOnce() {
+        TwoLevelCache cache = mock(TwoLevelCache.class);
+        when(cacheManager.getCache("book")).thenReturn(cache);
+
+        cacheEvictionService.evictAfterCommit("book", List.of(1L, 2L, 3L));
+
+        verify(cache, times(1)).evictAll(List.of(1L, 2L, 3L));
+        verify(cache, never()).evict(any());
+    }
+
+    @Test
+    public void testOtherCachesEvictEachKey() {
+        Cache cache = mock(Cache.class);
+        when(cacheManager.getCache("book")).thenReturn(cache);
+
+        cacheEvictionService.evictAfterCommit("book", List.of(1L, 2L));
+
+        verify(cache).evict(1L);
+        verify(cache).evict(2L);
+    }
+}
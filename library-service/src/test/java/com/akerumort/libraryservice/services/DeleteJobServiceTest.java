@@ -0,0 +1,111 @@
+package com.akerumort.libraryservice.services;
+
+import com.akerumort.libraryservice.dto.DeleteJobDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DeleteJobServiceTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
+    @Mock
+    private ChangeTrackingService changeTrackingService;
+
+    @InjectMocks
+    private DeleteJobService deleteJobService;
+
+    @AfterEach
+    void tearDown() {
+        deleteJobService.shutdown();
+    }
+
+    @Test
+    public void testDeletesInChunksAndClearsCaches() throws InterruptedException {
+        ReflectionTestUtils.setField(deleteJobService, "chunkSize", 2);
+        when(cacheManager.getCache(anyString())).thenReturn(cache);
+        AtomicInteger remaining = new AtomicInteger(5);
+        AtomicInteger chunks = new AtomicInteger();
+
+        DeleteJobDTO job = deleteJobService.start("book", remaining::get, limit -> {
+            chunks.incrementAndGet();
+            int deleted = Math.min(limit, remaining.get());
+            remaining.addAndGet(-deleted);
+            return deleted;
+        });
+        DeleteJobDTO finished = awaitFinished(job.getId());
+
+        assertEquals(DeleteJobDTO.Status.COMPLETED, finished.getStatus());
+        assertEquals(5, finished.getTotal());
+        assertEquals(5, finished.getDeleted());
+        assertNotNull(finished.getFinishedAt());
+        assertEquals(3, chunks.get());
+        verify(cache, times(2)).clear();
+        verify(autocompleteIndex).rebuild();
+    }
+
+    @Test
+    public void testReportsFailure() throws InterruptedException {
+        DeleteJobDTO job = deleteJobService.start("author", () -> 1, limit -> {
+            throw new IllegalStateException("connection lost");
+        });
+        DeleteJobDTO finished = awaitFinished(job.getId());
+
+        assertEquals(DeleteJobDTO.Status.FAILED, finished.getStatus());
+        assertEquals("connection lost", finished.getError());
+    }
+
+    @Test
+    public void testReturnsRunningJobForSameTarget() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        DeleteJobDTO first = deleteJobService.start("book", () -> 1, limit -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        });
+
+        DeleteJobDTO second = deleteJobService.start("book", () -> 1, limit -> 0);
+        release.countDown();
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(DeleteJobDTO.Status.COMPLETED, awaitFinished(first.getId()).getStatus());
+        assertNull(deleteJobService.getJob(UUID.randomUUID()));
+    }
+
+    private DeleteJobDTO awaitFinished(UUID id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            DeleteJobDTO job = deleteJobService.getJob(id);
+            if (job.getStatus() != DeleteJobDTO.Status.RUNNING) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Job " + id + " did not finish");
+        return null;
+    }
+}
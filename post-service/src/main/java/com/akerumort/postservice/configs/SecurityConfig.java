@@ -0,0 +1,17 @@
+package com.akerumort.postservice.configs;
+
+import com.akerumort.common.security.RequestAuthorizationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+
+// Tokens are verified by the shared chain from common, see JwtSecurityAutoConfiguration. Reads are public,
+// every other request needs a token issued by user-service.
+@Configuration
+public class SecurityConfig {
+
+    @Bean
+    public RequestAuthorizationCustomizer requestAuthorizationCustomizer() {
+        return requests -> requests.requestMatchers(HttpMethod.GET, "/**").permitAll();
+    }
+}
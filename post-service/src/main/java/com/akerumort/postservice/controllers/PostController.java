@@ -1,8 +1,14 @@
 package com.akerumort.postservice.controllers;
 
+import com.akerumort.common.web.ConditionalGet;
+import com.akerumort.postservice.dto.BatchResultDto;
+import com.akerumort.postservice.dto.CursorPageDto;
 import com.akerumort.postservice.dto.PostCreateDto;
 import com.akerumort.postservice.dto.PostResponseDto;
+import com.akerumort.postservice.dto.PostSearchResultDto;
+import com.akerumort.postservice.dto.TrendingPostDto;
 import com.akerumort.postservice.services.PostService;
+import com.akerumort.postservice.services.TrendingPostService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,9 +19,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @RestController
@@ -24,19 +38,108 @@ import java.util.List;
 @Tag(name = "Post Controller", description = "Controller for managing posts")
 public class PostController {
     private final PostService postService;
+    private final TrendingPostService trendingPostService;
 
     @Operation(summary = "Get all posts", description = "Returns a list of all posts")
     @ApiResponses({
             @ApiResponse(responseCode = "200",
                     description = "Successful operation",
                     content = @Content(array = @ArraySchema(schema = @Schema(implementation = PostResponseDto.class)))),
+            @ApiResponse(responseCode = "304",
+                    description = "No post or view count changed since the given ETag",
+                    content = @Content),
             @ApiResponse(responseCode = "404",
                     description = "Posts not found",
                     content = @Content)
     })
     @GetMapping
-    public ResponseEntity<List<PostResponseDto>> getPosts() {
-        return new ResponseEntity<>(postService.getAllPosts(), HttpStatus.OK);
+    public ResponseEntity<List<PostResponseDto>> getPosts(WebRequest request) {
+        String eTag = postService.getPostsETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
+        return ConditionalGet.ok(eTag, postService.getAllPosts());
+    }
+
+    @Operation(summary = "Get a page of posts",
+            description = "Returns up to 'limit' posts after the given cursor, ordered by 'id' or 'createdAt'")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "Successful operation"),
+            @ApiResponse(responseCode = "304",
+                    description = "No post or view count changed since the given ETag",
+                    content = @Content),
+            @ApiResponse(responseCode = "400",
+                    description = "Invalid cursor, sort field or limit",
+                    content = @Content)
+    })
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPageDto<PostResponseDto>> getPostsPage(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            WebRequest request) {
+        String eTag = postService.getPostsETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
+        return ConditionalGet.ok(eTag, postService.getPostsPage(after, sort, limit));
+    }
+
+    @Operation(summary = "Search posts",
+            description = "Full-text search over titles and content, returns up to 'limit' posts by relevance after the given cursor")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "Successful operation"),
+            @ApiResponse(responseCode = "304",
+                    description = "No post changed since the given ETag",
+                    content = @Content),
+            @ApiResponse(responseCode = "400",
+                    description = "Blank query, invalid cursor or limit",
+                    content = @Content)
+    })
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageDto<PostSearchResultDto>> searchPosts(
+            @RequestParam String q,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+        String eTag = postService.getSearchETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ConditionalGet.notModified();
+        }
+        return ConditionalGet.ok(eTag, postService.searchPosts(q, after, limit));
+    }
+
+    @Operation(summary = "Get trending posts",
+            description = "Returns up to 'limit' posts with the most views in the last 1h, 24h or 7d, recent views weigh more")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "Successful operation"),
+            @ApiResponse(responseCode = "400",
+                    description = "Unsupported window or invalid limit",
+                    content = @Content)
+    })
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingPostDto>> getTrendingPosts(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return new ResponseEntity<>(trendingPostService.getTrendingPosts(window, limit), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Export all posts", description = "Streams all posts as newline-delimited JSON")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "Successful operation",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = PostResponseDto.class)))
+    })
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPosts() {
+        StreamingResponseBody body = postService::exportPosts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @Operation(summary = "Get post by ID", description = "Returns a single post by ID")
@@ -44,14 +147,32 @@ public class PostController {
             @ApiResponse(responseCode = "200",
                     description = "Successful operation",
                     content = @Content(schema = @Schema(implementation = PostResponseDto.class))),
+            @ApiResponse(responseCode = "304",
+                    description = "Post not modified since the given ETag or date, the view is still counted",
+                    content = @Content),
             @ApiResponse(responseCode = "404",
                     description = "Post not found",
                     content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<PostResponseDto> getPost(@PathVariable Long id) {
+    public ResponseEntity<PostResponseDto> getPost(@PathVariable Long id, WebRequest request) {
+        LocalDateTime postUpdatedAt = postService.getPostUpdatedAt(id);
+        if (postUpdatedAt == null) {
+            return ConditionalGet.ok(null, postService.getPost(id));
+        }
+        Instant updatedAt = postUpdatedAt.atZone(ZoneId.systemDefault()).toInstant();
+        // weak, the body also carries the view count, which changes without the post changing
+        String eTag = ConditionalGet.weakETag(ChronoUnit.MICROS.between(Instant.EPOCH, updatedAt));
+        if (request.checkNotModified(eTag, updatedAt.toEpochMilli())) {
+            postService.recordView(id);
+            return ConditionalGet.notModified();
+        }
         PostResponseDto postResponseDto = postService.getPost(id);
-        return new ResponseEntity<>(postResponseDto, HttpStatus.OK);
+        return ResponseEntity.ok()
+                .cacheControl(ConditionalGet.CACHE_CONTROL)
+                .eTag(eTag)
+                .lastModified(updatedAt)
+                .body(postResponseDto);
     }
 
     @Operation(summary = "Create a new post", description = "Creates a new post")
@@ -68,6 +189,32 @@ public class PostController {
         return new ResponseEntity<>(postService.createPost(postCreateDto), HttpStatus.CREATED);
     }
 
+    @Operation(summary = "Create posts in bulk",
+            description = "Creates posts from a JSON array, invalid rows are reported without failing the others")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "Batch processed",
+                    content = @Content(schema = @Schema(implementation = BatchResultDto.class))),
+            @ApiResponse(responseCode = "400",
+                    description = "Batch is too large",
+                    content = @Content)
+    })
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchResultDto> createPosts(@RequestBody List<PostCreateDto> postCreateDtos) {
+        return new ResponseEntity<>(postService.createPosts(postCreateDtos), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Import posts", description = "Creates posts from newline-delimited JSON, one post per line")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "Upload processed",
+                    content = @Content(schema = @Schema(implementation = BatchResultDto.class)))
+    })
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResultDto> importPosts(InputStream inputStream) {
+        return new ResponseEntity<>(postService.importPosts(inputStream), HttpStatus.OK);
+    }
+
     @Operation(summary = "Update an existing post", description = "Updates an existing post by ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200",
@@ -0,0 +1,47 @@
+package com.akerumort.postservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Schema(description = "Outcome of a batch of posts, one entry in 'ids' per submitted row")
+public class BatchResultDto implements Serializable {
+
+    @Schema(description = "Number of rows stored", example = "2")
+    private int created;
+
+    @Schema(description = "Number of rows rejected", example = "1")
+    private int failed;
+
+    @Schema(description = "ID of the stored post for each row, null where the row failed", example = "[41, null, 42]")
+    private List<Long> ids = new ArrayList<>();
+
+    @Schema(description = "Error message by zero-based row index, only for rejected rows",
+            example = "{\"1\": \"Title cannot be blank\"}")
+    private Map<Integer, String> errors = new TreeMap<>();
+
+    public int addRow() {
+        ids.add(null);
+        return ids.size() - 1;
+    }
+
+    public void rowCreated(int row, Long id) {
+        ids.set(row, id);
+        created++;
+    }
+
+    public void rowFailed(int row, String error) {
+        errors.put(row, error);
+        failed++;
+    }
+}
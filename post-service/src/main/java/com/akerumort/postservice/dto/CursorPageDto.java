@@ -0,0 +1,25 @@
+package com.akerumort.postservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A page of results addressed by a cursor")
+public class CursorPageDto<T> implements Serializable {
+
+    @Schema(description = "Items of the page")
+    private List<T> items;
+
+    @Schema(description = "Cursor to pass as 'after' to fetch the next page, absent on the last page",
+            example = "MTA")
+    private String nextCursor;
+}
@@ -0,0 +1,33 @@
+package com.akerumort.postservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Schema(description = "A post matching a search, without its full content")
+public class PostSearchResultDto implements Serializable {
+
+    @Schema(description = "ID of the post", example = "1")
+    private Long id;
+
+    @Schema(description = "ID of the user who created the post", example = "1")
+    private Long userId;
+
+    @Schema(description = "Title of the post", example = "My First Post")
+    private String title;
+
+    @Schema(description = "HTML-escaped fragments of the content around the matched terms, which are wrapped in <mark> tags",
+            example = "Some <mark>content</mark> text here")
+    private String snippet;
+
+    @Schema(description = "Relevance of the post to the query, higher is better", example = "0.6079271")
+    private float rank;
+
+    @Schema(description = "Date and time when the post was created", example = "2024-10-03T12:00:00")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,29 @@
+package com.akerumort.postservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Schema(description = "A post ranked by its recent views, without its content")
+public class TrendingPostDto implements Serializable {
+
+    @Schema(description = "ID of the post", example = "1")
+    private Long id;
+
+    @Schema(description = "ID of the user who created the post", example = "1")
+    private Long userId;
+
+    @Schema(description = "Title of the post", example = "My First Post")
+    private String title;
+
+    @Schema(description = "Date and time when the post was created", example = "2024-10-03T12:00:00")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Views in the window, older views weighted down, higher is more popular", example = "42.5")
+    private double score;
+}
@@ -1,9 +1,38 @@
 package com.akerumort.postservice.repos;
 
 import com.akerumort.postservice.entities.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
+
+    @Query("select p from Post p where p.id > :afterId order by p.id")
+    List<Post> findPageAfterId(@Param("afterId") long afterId, Limit limit);
+
+    @Query("select p from Post p order by p.createdAt, p.id")
+    List<Post> findFirstPageByCreatedAt(Limit limit);
+
+    @Query("select p from Post p where p.createdAt > :createdAt or (p.createdAt = :createdAt and p.id > :afterId) " +
+            "order by p.createdAt, p.id")
+    List<Post> findPageAfterCreatedAt(@Param("createdAt") LocalDateTime createdAt,
+                                      @Param("afterId") long afterId,
+                                      Limit limit);
+
+    @Query("select p from Post p order by p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Post> streamAllOrderById();
 }
@@ -2,6 +2,22 @@ package com.akerumort.postservice.repos;
 
 import com.akerumort.postservice.entities.PostViewCount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface PostViewCountRepository extends JpaRepository<PostViewCount, Long> {
+    Optional<PostViewCount> findByPostId(Long postId);
+
+    List<PostViewCount> findAllByPostIdIn(Collection<Long> postIds);
+
+    @Query(value = """
+            INSERT INTO post_view_count (post_id, view_count) VALUES (:postId, 1)
+            ON CONFLICT (post_id) DO UPDATE SET view_count = post_view_count.view_count + 1
+            RETURNING view_count
+            """, nativeQuery = true)
+    long incrementViewCount(@Param("postId") Long postId);
 }
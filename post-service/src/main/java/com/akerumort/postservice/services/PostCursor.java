@@ -0,0 +1,35 @@
+package com.akerumort.postservice.services;
+
+import com.akerumort.postservice.entities.Post;
+import com.akerumort.postservice.exceptions.InvalidPostException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+public record PostCursor(PostSortField sort, LocalDateTime createdAt, long id) {
+
+    public static PostCursor of(PostSortField sort, Post post) {
+        return new PostCursor(sort, post.getCreatedAt(), post.getId());
+    }
+
+    public static PostCursor decode(PostSortField sort, String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (sort == PostSortField.ID) {
+                return new PostCursor(sort, null, Long.parseLong(value));
+            }
+            int separator = value.lastIndexOf('|');
+            return new PostCursor(sort, LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new InvalidPostException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String value = sort == PostSortField.ID ? Long.toString(id) : createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,32 @@
+package com.akerumort.postservice.services;
+
+import com.akerumort.postservice.dto.PostSearchResultDto;
+import com.akerumort.postservice.exceptions.InvalidPostException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// position in search results, which are ordered by rank and then id, both descending
+public record PostSearchCursor(float rank, long id) {
+
+    public static PostSearchCursor of(PostSearchResultDto result) {
+        return new PostSearchCursor(result.getRank(), result.getId());
+    }
+
+    public static PostSearchCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new PostSearchCursor(Float.parseFloat(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidPostException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        // Float.toString round-trips exactly, so the cursor row compares equal to its own rank
+        String value = rank + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,46 +1,155 @@
 package com.akerumort.postservice.services;
 
+import com.akerumort.common.web.ChangeCounter;
+import com.akerumort.postservice.dto.BatchResultDto;
+import com.akerumort.postservice.dto.CursorPageDto;
 import com.akerumort.postservice.dto.PostCreateDto;
 import com.akerumort.postservice.dto.PostResponseDto;
+import com.akerumort.postservice.dto.PostSearchResultDto;
 import com.akerumort.postservice.entities.Post;
 import com.akerumort.postservice.entities.PostViewCount;
+import com.akerumort.postservice.exceptions.DatabaseAccessException;
+import com.akerumort.postservice.exceptions.InvalidPostException;
 import com.akerumort.postservice.mappers.PostMapper;
 import com.akerumort.postservice.services.repo.PostRepoService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class PostService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    // postgres accepts at most 32767 bind parameters per statement
+    private static final int MAX_BIND_PARAMETERS = 32767;
+    static final int MAX_INSERT_BATCH_SIZE = MAX_BIND_PARAMETERS / PostRepoService.INSERT_PARAMETERS_PER_POST;
+
     private final PostRepoService postRepoService;
     private final PostViewCountService postViewCountService;
+    private final TrendingPostService trendingPostService;
+    private final ChangeCounter changeCounter;
     private final PostMapper postMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    // rows per multi-row insert, each insert commits on its own
+    @Value("${post.batch.insert-size:500}")
+    private int insertBatchSize = 500;
+
+    // limit for JSON array uploads, NDJSON uploads are streamed and not limited
+    @Value("${post.batch.max-size:10000}")
+    private int maxBatchSize = 10000;
+
+    // the post comes from the post cache, only its timestamp is read before a conditional GET is checked
+    public LocalDateTime getPostUpdatedAt(Long id) {
+        return postRepoService.findById(id).getUpdatedAt();
+    }
+
+    // for a GET answered with 304, a revalidated read still counts as a view
+    public void recordView(Long id) {
+        postViewCountService.incrementViewCount(id);
+        trendingPostService.recordView(id);
+    }
 
     public PostResponseDto getPost(Long id) {
         log.info("Fetching post with id {}", id);
         Post post = postRepoService.findById(id);
         PostViewCount postViewCount = postViewCountService.incrementViewCount(id);
+        trendingPostService.recordView(id);
         PostResponseDto postResponseDto = postMapper.toDto(post);
         postResponseDto.setViewCount(postViewCount.getViewCount());
         return postResponseDto;
     }
 
+    // weak ETag of the listings, which carry the stored view counts; null when it cannot be read
+    public String getPostsETag() {
+        return changeCounter.weakETag("post", "post_view_count");
+    }
+
+    // search results carry no view counts
+    public String getSearchETag() {
+        return changeCounter.weakETag("post");
+    }
+
     public List<PostResponseDto> getAllPosts() {
         log.info("Fetching all posts");
-        List<Post> posts = postRepoService.findAll();
-        return posts.stream()
-                .map(post -> {
-                    PostResponseDto dto = postMapper.toDto(post);
-                    dto.setViewCount(postViewCountService.getViewCount(post.getId()));
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return toDtos(postRepoService.findAll());
+    }
+
+    public CursorPageDto<PostResponseDto> getPostsPage(String after, String sort, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPostException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        PostSortField sortField = PostSortField.fromParameter(sort);
+        PostCursor cursor = after == null ? null : PostCursor.decode(sortField, after);
+        log.info("Fetching {} posts after cursor {} sorted by {}", limit, after, sort);
+
+        // one extra row tells whether another page follows
+        List<Post> posts = postRepoService.findPage(sortField, cursor, limit + 1);
+        String nextCursor = null;
+        if (posts.size() > limit) {
+            posts = posts.subList(0, limit);
+            nextCursor = PostCursor.of(sortField, posts.get(limit - 1)).encode();
+        }
+        return new CursorPageDto<>(toDtos(posts), nextCursor);
+    }
+
+    public CursorPageDto<PostSearchResultDto> searchPosts(String query, String after, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidPostException("Search query must not be blank");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPostException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        PostSearchCursor cursor = after == null ? null : PostSearchCursor.decode(after);
+        log.info("Searching {} posts for '{}' after cursor {}", limit, query, after);
+
+        List<PostSearchResultDto> results = postRepoService.search(query, cursor, limit + 1);
+        String nextCursor = null;
+        if (results.size() > limit) {
+            results = results.subList(0, limit);
+            nextCursor = PostSearchCursor.of(results.get(limit - 1)).encode();
+        }
+        return new CursorPageDto<>(results, nextCursor);
+    }
+
+    public void exportPosts(OutputStream outputStream) {
+        log.info("Exporting all posts");
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        postRepoService.forEachChunk(EXPORT_CHUNK_SIZE, posts -> {
+            try {
+                for (PostResponseDto dto : toDtos(posts)) {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write posts", e);
+            }
+        });
     }
 
     public PostResponseDto createPost(PostCreateDto postCreateDto) {
@@ -48,17 +157,126 @@ public class PostService {
         Post post = postMapper.toEntity(postCreateDto);
         post.setCreatedAt(LocalDateTime.now());
         post.setUpdatedAt(LocalDateTime.now());
-        return postMapper.toDto(postRepoService.savePost(post));
+        PostResponseDto created = postMapper.toDto(postRepoService.savePost(post));
+        changeCounter.recordChange("post");
+        return created;
+    }
+
+    public BatchResultDto createPosts(List<PostCreateDto> postCreateDtos) {
+        if (postCreateDtos.size() > maxBatchSize) {
+            throw new InvalidPostException("A batch can contain at most " + maxBatchSize + " posts");
+        }
+        log.info("Creating a batch of {} posts", postCreateDtos.size());
+        PostBatch batch = new PostBatch();
+        postCreateDtos.forEach(batch::add);
+        return batch.finish();
+    }
+
+    public BatchResultDto importPosts(InputStream inputStream) {
+        log.info("Importing posts from NDJSON");
+        PostBatch batch = new PostBatch();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(objectMapper.readValue(line, PostCreateDto.class));
+                } catch (JsonProcessingException e) {
+                    batch.reject("Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read posts", e);
+        }
+        return batch.finish();
     }
 
     public PostResponseDto updatePost(Long id, PostCreateDto postCreateDto) {
         log.info("Updating post with id {}", id);
         Post post = postMapper.toEntity(postCreateDto);
-        return postMapper.toDto(postRepoService.updatePost(id, post));
+        PostResponseDto updated = postMapper.toDto(postRepoService.updatePost(id, post));
+        changeCounter.recordChange("post");
+        return updated;
     }
 
     public void deletePost(Long id) {
         log.info("Deleting post with id {}", id);
         postRepoService.deleteById(id);
+        changeCounter.recordChange("post");
+        postViewCountService.discardPendingViews(id);
+        trendingPostService.discardViews(id);
+    }
+
+    // collects valid rows and writes them with one insert per insertBatchSize rows
+    private class PostBatch {
+        private final BatchResultDto result = new BatchResultDto();
+        private final int batchSize = Math.max(1, Math.min(insertBatchSize, MAX_INSERT_BATCH_SIZE));
+        private final List<Post> pending = new ArrayList<>(batchSize);
+        private final List<Integer> pendingRows = new ArrayList<>(batchSize);
+
+        void add(PostCreateDto postCreateDto) {
+            int row = result.addRow();
+            Set<ConstraintViolation<PostCreateDto>> violations = validator.validate(postCreateDto);
+            if (!violations.isEmpty()) {
+                result.rowFailed(row, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                return;
+            }
+            Post post = postMapper.toEntity(postCreateDto);
+            LocalDateTime now = LocalDateTime.now();
+            post.setCreatedAt(now);
+            post.setUpdatedAt(now);
+            pending.add(post);
+            pendingRows.add(row);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(String error) {
+            result.rowFailed(result.addRow(), error);
+        }
+
+        BatchResultDto finish() {
+            flush();
+            if (result.getCreated() > 0) {
+                changeCounter.recordChange("post");
+            }
+            log.info("Stored {} posts, rejected {}", result.getCreated(), result.getFailed());
+            return result;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                List<Long> ids = postRepoService.insertPosts(pending);
+                for (int i = 0; i < ids.size(); i++) {
+                    result.rowCreated(pendingRows.get(i), ids.get(i));
+                }
+            } catch (DatabaseAccessException e) {
+                // earlier batches are already committed, so the remaining rows are still attempted
+                pendingRows.forEach(row -> result.rowFailed(row, e.getMessage()));
+            }
+            pending.clear();
+            pendingRows.clear();
+        }
+    }
+
+    private List<PostResponseDto> toDtos(List<Post> posts) {
+        Map<Long, Integer> viewCounts = postViewCountService.getViewCounts(
+                posts.stream().map(Post::getId).collect(Collectors.toList()));
+        return posts.stream()
+                .map(post -> {
+                    PostResponseDto dto = postMapper.toDto(post);
+                    dto.setViewCount(viewCounts.getOrDefault(post.getId(), 0));
+                    return dto;
+                })
+                .collect(Collectors.toList());
     }
 }
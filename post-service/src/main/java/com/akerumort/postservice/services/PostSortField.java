@@ -0,0 +1,22 @@
+package com.akerumort.postservice.services;
+
+import com.akerumort.postservice.exceptions.InvalidPostException;
+
+public enum PostSortField {
+    ID("id"), CREATED_AT("createdAt");
+
+    private final String parameter;
+
+    PostSortField(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public static PostSortField fromParameter(String parameter) {
+        for (PostSortField field : values()) {
+            if (field.parameter.equals(parameter)) {
+                return field;
+            }
+        }
+        throw new InvalidPostException("Unsupported sort field: " + parameter);
+    }
+}
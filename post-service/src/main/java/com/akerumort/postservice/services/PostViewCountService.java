@@ -1,26 +1,144 @@
 package com.akerumort.postservice.services;
 
+import com.akerumort.common.web.ChangeCounter;
 import com.akerumort.postservice.entities.PostViewCount;
 import com.akerumort.postservice.services.repo.PostViewCountRepoService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class PostViewCountService {
     private final PostViewCountRepoService postViewCountRepoService;
+    // counts every write to the stored view counts, the post listings carry them and are tagged with the count
+    private final ChangeCounter changeCounter;
+
+    // false sends every view straight to the database as one atomic upsert
+    @Value("${post.view-count.write-behind:true}")
+    private boolean writeBehind = true;
+
+    // views not yet written to post_view_count, flushed in batches by flushViewCounts. An entry also keeps
+    // the last count read from the store, so only the first view of a post after it went idle reads it
+    private final Map<Long, PendingViews> pendingViews = new ConcurrentHashMap<>();
 
     public PostViewCount incrementViewCount(Long postId) {
-        PostViewCount postViewCount = postViewCountRepoService.findViewCountById(postId);
-        postViewCount.setViewCount(postViewCount.getViewCount() + 1);
-        return postViewCountRepoService.saveViewCount(postViewCount);
+        if (!writeBehind) {
+            PostViewCount postViewCount = postViewCountRepoService.incrementViewCount(postId);
+            changeCounter.recordChange("post_view_count");
+            return postViewCount;
+        }
+        // incrementing inside compute keeps a view from landing in an entry the flush is removing
+        PendingViews entry = pendingViews.computeIfPresent(postId, (id, views) -> {
+            views.pending++;
+            return views;
+        });
+        if (entry == null) {
+            int persisted = postViewCountRepoService.findViewCountById(postId).getViewCount();
+            entry = pendingViews.compute(postId, (id, pending) -> {
+                PendingViews views = pending == null ? new PendingViews(persisted) : pending;
+                views.pending++;
+                return views;
+            });
+        }
+        PostViewCount postViewCount = new PostViewCount();
+        postViewCount.setPostId(postId);
+        postViewCount.setViewCount((int) (entry.lastKnown + entry.pending));
+        return postViewCount;
     }
 
     @Transactional(readOnly = true)
     public int getViewCount(Long postId) {
-        return postViewCountRepoService.findViewCountById(postId).getViewCount();
+        int persisted = postViewCountRepoService.findViewCountById(postId).getViewCount();
+        return (int) (persisted + getPendingViews(postId));
+    }
+
+    // the stored counts only, without the views pending on this instance, so every instance returns the same
+    // counts until the next flush changes them and the listing ETag with them
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getViewCounts(Collection<Long> postIds) {
+        return postViewCountRepoService.findViewCountsByIds(postIds);
+    }
+
+    public long getPendingViews(Long postId) {
+        PendingViews views = pendingViews.get(postId);
+        return views == null ? 0 : views.pending;
+    }
+
+    int getPendingPostCount() {
+        return pendingViews.size();
+    }
+
+    public void discardPendingViews(Long postId) {
+        pendingViews.remove(postId);
+    }
+
+    @Scheduled(fixedDelayString = "${post.view-count.flush-interval-ms:5000}")
+    public synchronized void flushViewCounts() {
+        Map<Long, Long> deltas = new HashMap<>();
+        pendingViews.forEach((postId, views) -> {
+            long delta = views.pending;
+            if (delta != 0) {
+                deltas.put(postId, delta);
+            } else {
+                // not viewed since the last flush, the next view reads its count again
+                pendingViews.computeIfPresent(postId, (id, idle) -> idle.pending == 0 ? null : idle);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            postViewCountRepoService.addViewCounts(deltas);
+        } catch (RuntimeException e) {
+            // deltas stay pending and are retried on the next flush
+            log.error("Failed to flush view counts for {} posts: {}", deltas.size(), e.getMessage());
+            return;
+        }
+        changeCounter.recordChange("post_view_count");
+        Map<Long, Integer> counts = readFlushedCounts(deltas.keySet());
+        // only subtract what was written, views added during the flush stay pending
+        deltas.forEach((postId, delta) -> pendingViews.computeIfPresent(postId, (id, views) -> {
+            views.pending -= delta;
+            views.lastKnown = counts.containsKey(postId) ? counts.get(postId) : views.lastKnown + delta;
+            return views;
+        }));
+    }
+
+    // one bulk read per flush picks up the views other instances wrote since the entry was created
+    private Map<Long, Integer> readFlushedCounts(Collection<Long> postIds) {
+        try {
+            return postViewCountRepoService.findViewCountsByIds(postIds);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read flushed view counts for {} posts: {}", postIds.size(), e.getMessage());
+            return Map.of();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing pending view counts before shutdown");
+        flushViewCounts();
+    }
+
+    // fields are only written inside compute calls on pendingViews
+    private static class PendingViews {
+        private volatile long pending;
+        private volatile long lastKnown;
+
+        PendingViews(long lastKnown) {
+            this.lastKnown = lastKnown;
+        }
     }
 }
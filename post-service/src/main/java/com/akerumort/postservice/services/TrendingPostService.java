@@ -0,0 +1,207 @@
+package com.akerumort.postservice.services;
+
+import com.akerumort.postservice.dto.TrendingPostDto;
+import com.akerumort.postservice.entities.Post;
+import com.akerumort.postservice.exceptions.DatabaseAccessException;
+import com.akerumort.postservice.exceptions.InvalidPostException;
+import com.akerumort.postservice.services.repo.PostRepoService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Counts views per time bucket in redis sorted sets and ranks posts by the decayed sum of a window's buckets.
+// The merged ranking of a window is stored in its own sorted set for refresh-interval, so a request reads
+// the top posts with ZREVRANGE in O(log n + limit) instead of sorting post_view_count.
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class TrendingPostService {
+    private static final String KEY_PREFIX = "post:trending:";
+    private static final int MAX_LIMIT = 100;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final PostRepoService postRepoService;
+
+    // how long a merged ranking is served before the buckets are merged again
+    @Value("${post.trending.refresh-interval:60s}")
+    private Duration refreshInterval = Duration.ofSeconds(60);
+
+    // buckets that no longer receive views keep only their most viewed posts, which bounds the cost of a merge
+    @Value("${post.trending.bucket-size:10000}")
+    private int bucketSize = 10000;
+
+    private Clock clock = Clock.systemUTC();
+
+    // views not yet added to the current buckets, flushed in one pipeline by flushViews; a post is removed
+    // once its views are flushed, so only posts viewed since the last flush are held
+    private final Map<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    public void recordView(Long postId) {
+        pendingViews.merge(postId, 1L, Long::sum);
+    }
+
+    public List<TrendingPostDto> getTrendingPosts(String windowParameter, int limit) {
+        TrendingWindow window = TrendingWindow.fromParameter(windowParameter);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidPostException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        log.info("Fetching {} trending posts of the last {}", limit, window.getParameter());
+
+        byte[] rankingKey = bytes(KEY_PREFIX + window.getParameter() + ":ranking");
+        Set<Tuple> ranking;
+        try {
+            ranking = redisTemplate.execute((RedisCallback<Set<Tuple>>) connection -> {
+                if (!Boolean.TRUE.equals(connection.keyCommands().exists(rankingKey))) {
+                    mergeBuckets(connection, window, rankingKey);
+                }
+                return connection.zSetCommands().zRevRangeWithScores(rankingKey, 0, limit - 1);
+            });
+        } catch (DataAccessException e) {
+            log.error("Error reading trending posts: {}", e.getMessage());
+            throw new DatabaseAccessException("Failed to retrieve trending posts");
+        }
+        if (ranking == null || ranking.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> postIds = ranking.stream().map(tuple -> toLong(tuple.getValue())).toList();
+        Map<Long, Post> posts = postRepoService.findAllById(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        // posts deleted since their views were counted are left out
+        return ranking.stream()
+                .filter(tuple -> posts.containsKey(toLong(tuple.getValue())))
+                .map(tuple -> toDto(posts.get(toLong(tuple.getValue())), tuple.getScore()))
+                .toList();
+    }
+
+    public void discardViews(Long postId) {
+        pendingViews.remove(postId);
+        byte[] member = bytes(postId.toString());
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                long now = clock.millis();
+                bucketSeries().forEach((width, buckets) -> {
+                    for (int age = 0; age < buckets; age++) {
+                        connection.zSetCommands().zRem(bucketKey(width, now, age), member);
+                    }
+                });
+                for (TrendingWindow window : TrendingWindow.values()) {
+                    connection.zSetCommands().zRem(bytes(KEY_PREFIX + window.getParameter() + ":ranking"), member);
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Error removing post {} from trending posts: {}", postId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${post.trending.flush-interval-ms:5000}")
+    public synchronized void flushViews() {
+        Map<Long, Long> deltas = new HashMap<>();
+        pendingViews.forEach((postId, pending) -> {
+            if (pending != 0) {
+                deltas.put(postId, pending);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                long now = clock.millis();
+                for (Map.Entry<Duration, Integer> series : bucketSeries().entrySet()) {
+                    Duration width = series.getKey();
+                    byte[] currentKey = bucketKey(width, now, 0);
+                    deltas.forEach((postId, delta) ->
+                            connection.zSetCommands().zIncrBy(currentKey, delta, bytes(postId.toString())));
+                    // a bucket is kept until the longest window using it has moved past it
+                    connection.keyCommands().expire(currentKey, width.multipliedBy(series.getValue() + 1).toSeconds());
+                    connection.zSetCommands().zRemRange(bucketKey(width, now, 1), 0, -bucketSize - 1L);
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            // deltas stay pending and are retried on the next flush
+            log.error("Failed to flush trending views for {} posts: {}", deltas.size(), e.getMessage());
+            return;
+        }
+        // views recorded during the flush keep their entry, the atomic update cannot drop them with it
+        deltas.forEach((postId, delta) -> pendingViews.computeIfPresent(postId, (id, pending) -> {
+            long left = pending - delta;
+            return left == 0 ? null : left;
+        }));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushViews();
+    }
+
+    private void mergeBuckets(RedisConnection connection, TrendingWindow window, byte[] rankingKey) {
+        long now = clock.millis();
+        byte[][] keys = new byte[window.getBuckets()][];
+        double[] weights = new double[window.getBuckets()];
+        for (int age = 0; age < window.getBuckets(); age++) {
+            keys[age] = bucketKey(window.getBucketWidth(), now, age);
+            weights[age] = window.bucketWeight(age);
+        }
+        connection.zSetCommands().zUnionStore(rankingKey, Aggregate.SUM, Weights.of(weights), keys);
+        connection.keyCommands().expire(rankingKey, refreshInterval.toSeconds());
+    }
+
+    // each bucket width with the number of buckets of the longest window using it
+    private static Map<Duration, Integer> bucketSeries() {
+        return Stream.of(TrendingWindow.values())
+                .collect(Collectors.toMap(TrendingWindow::getBucketWidth, TrendingWindow::getBuckets, Math::max));
+    }
+
+    private static byte[] bucketKey(Duration width, long nowMillis, int age) {
+        long bucket = nowMillis / width.toMillis() - age;
+        return bytes(KEY_PREFIX + width.toMinutes() + "m:" + bucket);
+    }
+
+    private static TrendingPostDto toDto(Post post, Double score) {
+        TrendingPostDto dto = new TrendingPostDto();
+        dto.setId(post.getId());
+        dto.setUserId(post.getUserId());
+        dto.setTitle(post.getTitle());
+        dto.setCreatedAt(post.getCreatedAt());
+        dto.setScore(score == null ? 0 : score);
+        return dto;
+    }
+
+    int getPendingPostCount() {
+        return pendingViews.size();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Long toLong(byte[] value) {
+        return Long.parseLong(new String(value, StandardCharsets.UTF_8));
+    }
+}
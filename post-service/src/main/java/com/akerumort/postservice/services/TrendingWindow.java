@@ -0,0 +1,48 @@
+package com.akerumort.postservice.services;
+
+import com.akerumort.postservice.exceptions.InvalidPostException;
+
+import java.time.Duration;
+
+// Views are counted in buckets of bucketWidth, a window sums its most recent buckets.
+public enum TrendingWindow {
+    HOUR("1h", Duration.ofMinutes(5), 12),
+    DAY("24h", Duration.ofHours(1), 24),
+    WEEK("7d", Duration.ofHours(1), 168);
+
+    private final String parameter;
+    private final Duration bucketWidth;
+    private final int buckets;
+
+    TrendingWindow(String parameter, Duration bucketWidth, int buckets) {
+        this.parameter = parameter;
+        this.bucketWidth = bucketWidth;
+        this.buckets = buckets;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public Duration getBucketWidth() {
+        return bucketWidth;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    // views lose half their weight every quarter of the window
+    public double bucketWeight(int age) {
+        return Math.pow(0.5, age * 4.0 / buckets);
+    }
+
+    public static TrendingWindow fromParameter(String parameter) {
+        for (TrendingWindow window : values()) {
+            if (window.parameter.equals(parameter)) {
+                return window;
+            }
+        }
+        throw new InvalidPostException("Unsupported trending window: " + parameter);
+    }
+}
@@ -1,15 +1,29 @@
 package com.akerumort.postservice.services.repo;
 
+import com.akerumort.postservice.dto.PostSearchResultDto;
 import com.akerumort.postservice.entities.Post;
+import com.akerumort.postservice.services.PostCursor;
+import com.akerumort.postservice.services.PostSearchCursor;
+import com.akerumort.postservice.services.PostSortField;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public interface PostRepoService {
+    // bind parameters per row of an insertPosts statement
+    int INSERT_PARAMETERS_PER_POST = 6;
+
     Post savePost(Post post);
+    List<Long> insertPosts(List<Post> posts);
     Post updatePost(Long id, Post post);
     Post findById(Long id);
     List<Post> findAll();
+    List<Post> findAllById(Collection<Long> ids);
+    List<Post> findPage(PostSortField sort, PostCursor after, int limit);
+    void forEachChunk(int chunkSize, Consumer<List<Post>> consumer);
+    List<PostSearchResultDto> search(String query, PostSearchCursor after, int limit);
     void deleteById(Long id);
 }
@@ -3,8 +3,14 @@ package com.akerumort.postservice.services.repo;
 import com.akerumort.postservice.entities.PostViewCount;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Map;
+
 @Service
 public interface PostViewCountRepoService {
     PostViewCount findViewCountById(Long postId);
+    Map<Long, Integer> findViewCountsByIds(Collection<Long> postIds);
     PostViewCount saveViewCount(PostViewCount postViewCount);
+    PostViewCount incrementViewCount(Long postId);
+    void addViewCounts(Map<Long, Long> deltas);
 }
@@ -1,33 +1,78 @@
 package com.akerumort.postservice.services.repo.impl;
 
+import com.akerumort.postservice.dto.PostSearchResultDto;
 import com.akerumort.postservice.entities.Post;
 import com.akerumort.postservice.exceptions.DatabaseAccessException;
 import com.akerumort.postservice.exceptions.InvalidPostException;
 import com.akerumort.postservice.exceptions.PostNotFoundException;
 import com.akerumort.postservice.repos.PostRepository;
+import com.akerumort.postservice.services.PostCursor;
+import com.akerumort.postservice.services.PostSearchCursor;
+import com.akerumort.postservice.services.PostSortField;
 import com.akerumort.postservice.services.repo.PostRepoService;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class PostRepoServiceImpl implements PostRepoService {
+    private static final String NEXT_POST_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('post', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_POSTS_SQL =
+            "INSERT INTO post (id, user_id, title, content, created_at, updated_at) VALUES ";
+    private static final String INSERT_POST_VALUES =
+            "(" + String.join(", ", Collections.nCopies(INSERT_PARAMETERS_PER_POST, "?")) + ")";
+    // the GIN index on search_vector finds the matches, only the rows of the page are joined back for
+    // their content and highlighted; the text search configuration must match the V4 migration.
+    // The content is HTML-escaped before highlighting, so the <mark> tags are the only markup in a snippet.
+    private static final String SEARCH_SQL = """
+            WITH query AS (SELECT websearch_to_tsquery('english', ?) AS q),
+            hits AS (
+                SELECT p.id, ts_rank(p.search_vector, query.q) AS rank
+                FROM post p, query
+                WHERE p.search_vector @@ query.q %s
+                ORDER BY rank DESC, p.id DESC
+                LIMIT ?
+            )
+            SELECT p.id, p.user_id, p.title, p.created_at, hits.rank,
+                   ts_headline('english',
+                               replace(replace(replace(replace(replace(p.content,
+                                   '&', '&amp;'), '<', '&lt;'), '>', '&gt;'), '"', '&quot;'), '''', '&#39;'),
+                               query.q,
+                               'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MinWords=10, MaxWords=30') AS snippet
+            FROM hits
+            JOIN post p ON p.id = hits.id
+            CROSS JOIN query
+            ORDER BY hits.rank DESC, hits.id DESC
+            """;
+    private static final String SEARCH_AFTER_CONDITION = "AND (ts_rank(p.search_vector, query.q), p.id) < (?, ?)";
+
     private final PostRepository postRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "post", key = "#id")
+    @Cacheable(value = "post", key = "#id", sync = true)
     public Post findById(Long id) {
         Optional<Post> post = postRepository.findById(id);
         return post.orElseThrow(() -> new PostNotFoundException("Post with id " + id + " not found"));
@@ -44,6 +89,57 @@ public class PostRepoServiceImpl implements PostRepoService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Post> findAllById(Collection<Long> ids) {
+        try {
+            return postRepository.findAllById(ids);
+        } catch (DataAccessException e) {
+            log.error("Error retrieving posts by ids: {}", e.getMessage());
+            throw new DatabaseAccessException("Failed to retrieve posts");
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Post> findPage(PostSortField sort, PostCursor after, int limit) {
+        try {
+            if (sort == PostSortField.ID) {
+                return postRepository.findPageAfterId(after == null ? 0 : after.id(), Limit.of(limit));
+            }
+            if (after == null) {
+                return postRepository.findFirstPageByCreatedAt(Limit.of(limit));
+            }
+            return postRepository.findPageAfterCreatedAt(after.createdAt(), after.id(), Limit.of(limit));
+        } catch (DataAccessException e) {
+            log.error("Error retrieving page of posts: {}", e.getMessage());
+            throw new DatabaseAccessException("Failed to retrieve posts");
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachChunk(int chunkSize, Consumer<List<Post>> consumer) {
+        try (Stream<Post> posts = postRepository.streamAllOrderById()) {
+            List<Post> chunk = new ArrayList<>(chunkSize);
+            posts.forEach(post -> {
+                chunk.add(post);
+                if (chunk.size() == chunkSize) {
+                    consumer.accept(chunk);
+                    chunk.clear();
+                    // keeps the persistence context from growing with the table
+                    entityManager.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                consumer.accept(chunk);
+            }
+        } catch (DataAccessException e) {
+            log.error("Error streaming posts: {}", e.getMessage());
+            throw new DatabaseAccessException("Failed to retrieve posts");
+        }
+    }
+
     @Override
     @Transactional
     @CachePut(value = "post", key = "#post.id")
@@ -60,6 +156,62 @@ public class PostRepoServiceImpl implements PostRepoService {
 
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostSearchResultDto> search(String query, PostSearchCursor after, int limit) {
+        List<Object> args = new ArrayList<>(List.of(query));
+        if (after != null) {
+            args.add(after.rank());
+            args.add(after.id());
+        }
+        args.add(limit);
+        String sql = String.format(SEARCH_SQL, after == null ? "" : SEARCH_AFTER_CONDITION);
+        try {
+            return jdbcTemplate.query(sql, (rs, rowNum) -> {
+                PostSearchResultDto result = new PostSearchResultDto();
+                result.setId(rs.getLong("id"));
+                result.setUserId(rs.getLong("user_id"));
+                result.setTitle(rs.getString("title"));
+                result.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+                result.setRank(rs.getFloat("rank"));
+                result.setSnippet(rs.getString("snippet"));
+                return result;
+            }, args.toArray());
+        } catch (DataAccessException e) {
+            log.error("Error searching posts: {}", e.getMessage());
+            throw new DatabaseAccessException("Failed to search posts");
+        }
+    }
+
+    // RETURNING does not promise row order, so the ids are taken from the sequence first and inserted explicitly,
+    // then all posts go in one multi-row insert; the post cache is filled on first read
+    @Override
+    @Transactional
+    public List<Long> insertPosts(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<Long> ids = jdbcTemplate.queryForList(NEXT_POST_IDS_SQL, Long.class, posts.size());
+            String sql = INSERT_POSTS_SQL + String.join(", ", Collections.nCopies(posts.size(), INSERT_POST_VALUES));
+            List<Object> args = new ArrayList<>(posts.size() * INSERT_PARAMETERS_PER_POST);
+            for (int i = 0; i < posts.size(); i++) {
+                Post post = posts.get(i);
+                args.add(ids.get(i));
+                args.add(post.getUserId());
+                args.add(post.getTitle());
+                args.add(post.getContent());
+                args.add(post.getCreatedAt());
+                args.add(post.getUpdatedAt());
+            }
+            jdbcTemplate.update(sql, args.toArray());
+            return ids;
+        } catch (DataAccessException e) {
+            log.error("Error saving batch of {} posts: {}", posts.size(), e.getMessage());
+            throw new DatabaseAccessException("Failed to save posts");
+        }
+    }
+
     @Override
     @Transactional
     @CachePut(value = "post", key = "#id")
@@ -1,26 +1,58 @@
 package com.akerumort.postservice.services.repo.impl;
 
+import com.akerumort.common.cache.TwoLevelCacheManager;
 import com.akerumort.postservice.entities.PostViewCount;
+import com.akerumort.postservice.exceptions.DatabaseAccessException;
 import com.akerumort.postservice.repos.PostViewCountRepository;
 import com.akerumort.postservice.services.repo.PostViewCountRepoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.Cache;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class PostViewCountRepoServiceImpl implements PostViewCountRepoService {
+    // rows for deleted posts are skipped by the join instead of failing the whole batch on the foreign key
+    private static final String ADD_VIEW_COUNT_SQL = """
+            INSERT INTO post_view_count (post_id, view_count)
+            SELECT p.id, ? FROM post p WHERE p.id = ?
+            ON CONFLICT (post_id) DO UPDATE SET view_count = post_view_count.view_count + EXCLUDED.view_count
+            """;
+    private static final String STORE_VIEW_COUNT_SQL = """
+            INSERT INTO post_view_count (post_id, view_count)
+            SELECT p.id, ? FROM post p WHERE p.id = ?
+            ON CONFLICT (post_id) DO UPDATE SET view_count = GREATEST(post_view_count.view_count, EXCLUDED.view_count)
+            """;
+
     private final PostViewCountRepository postViewCountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TwoLevelCacheManager cacheManager;
+    private final RedisTemplate<String, Object> redisTemplate;
 
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "viewCounts", key = "#postId")
+    @Cacheable(value = "viewCounts", key = "#postId", sync = true)
     public PostViewCount findViewCountById(Long postId) {
-        return postViewCountRepository.findById(postId)
+        return postViewCountRepository.findByPostId(postId)
                 .orElseGet(() -> {
                     PostViewCount postViewCount = new PostViewCount();
                     postViewCount.setPostId(postId);
@@ -29,10 +61,115 @@ public class PostViewCountRepoServiceImpl implements PostViewCountRepoService {
                 });
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> findViewCountsByIds(Collection<Long> postIds) {
+        Map<Long, Integer> viewCounts = findCachedViewCounts(postIds);
+        List<Long> missing = postIds.stream().filter(postId -> !viewCounts.containsKey(postId)).toList();
+        if (!missing.isEmpty()) {
+            missing.forEach(postId -> viewCounts.put(postId, 0));
+            postViewCountRepository.findAllByPostIdIn(missing)
+                    .forEach(postViewCount -> viewCounts.put(postViewCount.getPostId(), postViewCount.getViewCount()));
+        }
+        return viewCounts;
+    }
+
     @Override
     @Transactional
     @CachePut(value = "viewCounts", key = "#postViewCount.postId")
     public PostViewCount saveViewCount(PostViewCount postViewCount) {
         return postViewCountRepository.save(postViewCount);
     }
+
+    @Override
+    @Transactional
+    @CachePut(value = "viewCounts", key = "#postId")
+    public PostViewCount incrementViewCount(Long postId) {
+        try {
+            PostViewCount postViewCount = new PostViewCount();
+            postViewCount.setPostId(postId);
+            postViewCount.setViewCount((int) postViewCountRepository.incrementViewCount(postId));
+            return postViewCount;
+        } catch (DataAccessException e) {
+            log.error("Error incrementing view count: {}", e.getMessage());
+            throw new DatabaseAccessException("Failed to increment view count");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addViewCounts(Map<Long, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        batchUpdate(ADD_VIEW_COUNT_SQL, deltas);
+        log.debug("Flushed view counts for {} posts", deltas.size());
+    }
+
+    // writes absolute counts kept outside the database, a stored count never moves backwards
+    @Transactional
+    public void storeViewCounts(Map<Long, Long> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        batchUpdate(STORE_VIEW_COUNT_SQL, counts);
+        log.debug("Stored view counts for {} posts", counts.size());
+    }
+
+    // one MGET over the viewCounts cache entries instead of a cache lookup per post
+    private Map<Long, Integer> findCachedViewCounts(Collection<Long> postIds) {
+        Map<Long, Integer> viewCounts = new HashMap<>();
+        if (postIds.isEmpty()) {
+            return viewCounts;
+        }
+        List<Long> ids = new ArrayList<>(postIds);
+        RedisCacheConfiguration redisCacheConfiguration = cacheManager.getRedisCacheConfiguration("viewCounts");
+        String keyPrefix = redisCacheConfiguration.getKeyPrefixFor("viewCounts");
+        byte[][] keys = ids.stream()
+                .map(postId -> toBytes(redisCacheConfiguration.getKeySerializationPair().write(keyPrefix + postId)))
+                .toArray(byte[][]::new);
+        List<byte[]> values;
+        try {
+            values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(keys));
+        } catch (DataAccessException e) {
+            log.warn("Error reading cached view counts: {}", e.getMessage());
+            return viewCounts;
+        }
+        for (int i = 0; values != null && i < ids.size(); i++) {
+            if (values.get(i) != null && redisCacheConfiguration.getValueSerializationPair()
+                    .read(ByteBuffer.wrap(values.get(i))) instanceof PostViewCount postViewCount) {
+                viewCounts.put(ids.get(i), postViewCount.getViewCount());
+            }
+        }
+        return viewCounts;
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private void batchUpdate(String sql, Map<Long, Long> valuesByPostId) {
+        List<Object[]> batchArgs = new ArrayList<>(valuesByPostId.size());
+        valuesByPostId.forEach((postId, value) -> batchArgs.add(new Object[]{value, postId}));
+        try {
+            jdbcTemplate.batchUpdate(sql, batchArgs);
+        } catch (DataAccessException e) {
+            log.error("Error writing view counts: {}", e.getMessage());
+            throw new DatabaseAccessException("Failed to write view counts");
+        }
+
+        // evicting before commit would let a concurrent reader cache the old count again
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Cache viewCounts = cacheManager.getCache("viewCounts");
+                if (viewCounts != null) {
+                    valuesByPostId.keySet().forEach(viewCounts::evict);
+                }
+            }
+        });
+    }
 }
@@ -0,0 +1,239 @@
+package com.akerumort.postservice.services.repo.impl;
+
+import com.akerumort.postservice.entities.PostViewCount;
+import com.akerumort.postservice.services.repo.PostViewCountRepoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Service
+@Primary
+@ConditionalOnProperty(name = "post.view-count.store", havingValue = "redis")
+@RequiredArgsConstructor
+@Log4j2
+public class RedisPostViewCountRepoServiceImpl implements PostViewCountRepoService {
+    private static final String COUNTER_KEY_PREFIX = "post:views:";
+    // ids of posts whose counters changed since the last reconciliation
+    private static final byte[] DIRTY_KEY = bytes("post:views:dirty");
+    private static final long UNAVAILABLE_BACKOFF_MILLIS = 10_000;
+    // a missing counter is seeded from the database later, which already holds the views
+    private static final byte[] INCREMENT_EXISTING_SCRIPT = bytes(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCRBY', KEYS[1], ARGV[1]) end return 0");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final PostViewCountRepoServiceImpl databaseRepoService;
+
+    @Value("${post.view-count.reconcile-batch-size:500}")
+    private int reconcileBatchSize = 500;
+
+    private volatile long unavailableUntil;
+
+    // views written to the database while redis was unavailable. The counters do not hold them, and
+    // reconciling a counter that is behind would keep the larger database count only until it caught up
+    private final Map<Long, Long> fallbackViews = new ConcurrentHashMap<>();
+
+    @Override
+    public PostViewCount findViewCountById(Long postId) {
+        Long count = withRedis(() -> redisTemplate.execute((RedisCallback<Long>) connection ->
+                toLong(connection.stringCommands().get(counterKey(postId)))));
+        if (count == null) {
+            return databaseRepoService.findViewCountById(postId);
+        }
+        return viewCount(postId, count);
+    }
+
+    @Override
+    public Map<Long, Integer> findViewCountsByIds(Collection<Long> postIds) {
+        List<Long> ids = new ArrayList<>(postIds);
+        Map<Long, Long> counters = withRedis(() -> readCounters(ids));
+        if (counters == null) {
+            return databaseRepoService.findViewCountsByIds(postIds);
+        }
+        Map<Long, Integer> viewCounts = new HashMap<>();
+        counters.forEach((postId, count) -> viewCounts.put(postId, (int) count.longValue()));
+        List<Long> missing = ids.stream().filter(postId -> !counters.containsKey(postId)).toList();
+        if (!missing.isEmpty()) {
+            viewCounts.putAll(databaseRepoService.findViewCountsByIds(missing));
+        }
+        return viewCounts;
+    }
+
+    @Override
+    public PostViewCount saveViewCount(PostViewCount postViewCount) {
+        Boolean stored = withRedis(() -> redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            connection.stringCommands().set(counterKey(postViewCount.getPostId()),
+                    bytes(String.valueOf(postViewCount.getViewCount())));
+            connection.setCommands().sAdd(DIRTY_KEY, bytes(postViewCount.getPostId().toString()));
+            return true;
+        }));
+        return stored == null ? databaseRepoService.saveViewCount(postViewCount) : postViewCount;
+    }
+
+    @Override
+    public PostViewCount incrementViewCount(Long postId) {
+        Map<Long, Long> counts = withRedis(() -> incrementCounters(Map.of(postId, 1L)));
+        if (counts != null) {
+            return viewCount(postId, counts.get(postId));
+        }
+        PostViewCount postViewCount = databaseRepoService.incrementViewCount(postId);
+        fallbackViews.merge(postId, 1L, Long::sum);
+        return postViewCount;
+    }
+
+    @Override
+    public void addViewCounts(Map<Long, Long> deltas) {
+        if (withRedis(() -> incrementCounters(deltas)) == null) {
+            databaseRepoService.addViewCounts(deltas);
+            deltas.forEach((postId, delta) -> fallbackViews.merge(postId, delta, Long::sum));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${post.view-count.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        List<Long> postIds;
+        while (!(postIds = popDirtyPostIds()).isEmpty()) {
+            List<Long> batch = postIds;
+            Map<Long, Long> counts = withRedis(() -> readCounters(batch));
+            if (counts == null) {
+                return;
+            }
+            try {
+                databaseRepoService.storeViewCounts(counts);
+            } catch (RuntimeException e) {
+                log.error("Failed to reconcile view counts for {} posts: {}", postIds.size(), e.getMessage());
+                markDirty(postIds);
+                return;
+            }
+            log.debug("Reconciled view counts for {} posts", counts.size());
+        }
+    }
+
+    private Map<Long, Long> incrementCounters(Map<Long, Long> deltas) {
+        List<Long> postIds = new ArrayList<>(deltas.keySet());
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long postId : postIds) {
+                connection.stringCommands().incrBy(counterKey(postId), deltas.get(postId));
+                connection.setCommands().sAdd(DIRTY_KEY, bytes(postId.toString()));
+            }
+            return null;
+        });
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (int i = 0; i < postIds.size(); i++) {
+            Long postId = postIds.get(i);
+            long count = (Long) results.get(i * 2);
+            if (count == deltas.get(postId)) {
+                // the counter did not exist yet, so start it from the count already stored in the database
+                long persisted = databaseRepoService.findViewCountById(postId).getViewCount();
+                if (persisted > 0) {
+                    count = redisTemplate.execute((RedisCallback<Long>) connection ->
+                            connection.stringCommands().incrBy(counterKey(postId), persisted));
+                }
+            }
+            counts.put(postId, count);
+        }
+        return counts;
+    }
+
+    // adds the fallback views to the counters that exist, before any other command once redis is back
+    private synchronized void replayFallbackViews() {
+        Map<Long, Long> deltas = new HashMap<>(fallbackViews);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            deltas.forEach((postId, delta) -> connection.scriptingCommands().eval(INCREMENT_EXISTING_SCRIPT,
+                    ReturnType.INTEGER, 1, counterKey(postId), bytes(delta.toString())));
+            return null;
+        });
+        deltas.forEach((postId, delta) ->
+                fallbackViews.computeIfPresent(postId, (id, views) -> views == delta.longValue() ? null : views - delta));
+        log.info("Added {} posts' view counts written during the redis outage to their counters", deltas.size());
+    }
+
+    private List<Long> popDirtyPostIds() {
+        List<byte[]> members = withRedis(() -> redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.setCommands().sPop(DIRTY_KEY, reconcileBatchSize)));
+        List<Long> postIds = new ArrayList<>();
+        if (members != null) {
+            members.forEach(member -> postIds.add(toLong(member)));
+        }
+        return postIds;
+    }
+
+    private Map<Long, Long> readCounters(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        byte[][] keys = postIds.stream().map(RedisPostViewCountRepoServiceImpl::counterKey).toArray(byte[][]::new);
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(keys));
+        Map<Long, Long> counts = new HashMap<>();
+        for (int i = 0; i < postIds.size(); i++) {
+            Long count = values == null ? null : toLong(values.get(i));
+            if (count != null) {
+                counts.put(postIds.get(i), count);
+            }
+        }
+        return counts;
+    }
+
+    private void markDirty(List<Long> postIds) {
+        byte[][] members = postIds.stream().map(postId -> bytes(postId.toString())).toArray(byte[][]::new);
+        withRedis(() -> redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.setCommands().sAdd(DIRTY_KEY, members)));
+    }
+
+    // returns null when redis is unavailable so callers can fall back to the database
+    private <T> T withRedis(Supplier<T> operation) {
+        if (System.currentTimeMillis() < unavailableUntil) {
+            return null;
+        }
+        try {
+            if (!fallbackViews.isEmpty()) {
+                replayFallbackViews();
+            }
+            return operation.get();
+        } catch (DataAccessException e) {
+            log.warn("Redis is unavailable, falling back to the database: {}", e.getMessage());
+            unavailableUntil = System.currentTimeMillis() + UNAVAILABLE_BACKOFF_MILLIS;
+            return null;
+        }
+    }
+
+    private static PostViewCount viewCount(Long postId, long count) {
+        PostViewCount postViewCount = new PostViewCount();
+        postViewCount.setPostId(postId);
+        postViewCount.setViewCount((int) count);
+        return postViewCount;
+    }
+
+    private static byte[] counterKey(Long postId) {
+        return bytes(COUNTER_KEY_PREFIX + postId);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Long toLong(byte[] value) {
+        return value == null ? null : Long.parseLong(new String(value, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1 @@
+CREATE INDEX idx_post_created_at_id ON post (created_at, id);
@@ -0,0 +1,7 @@
+-- kept up to date by postgres on every insert and update, titles rank above content
+ALTER TABLE post ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(content, '')), 'B')
+) STORED;
+
+CREATE INDEX idx_post_search_vector ON post USING GIN (search_vector);
@@ -0,0 +1,83 @@
+package com.akerumort.postservice.repos;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the view count upsert from many transactions at once against postgres. Needs docker, skipped without it.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PostViewCountRepositoryTest {
+
+    private static final int VIEWS = 1000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PostViewCountRepository postViewCountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() throws Exception {
+        Long postId = jdbcTemplate.queryForObject(
+                "INSERT INTO post (user_id, title, content) VALUES (1, 'Title', 'Content') RETURNING id", Long.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // each increment commits on its own, the first ones race to insert the row
+        Set<Long> returnedCounts = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> increments = new ArrayList<>();
+        try {
+            for (int i = 0; i < VIEWS; i++) {
+                increments.add(executor.submit(() -> {
+                    start.await();
+                    returnedCounts.add(transactionTemplate.execute(status ->
+                            postViewCountRepository.incrementViewCount(postId)));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> increment : increments) {
+                increment.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(VIEWS, jdbcTemplate.queryForObject(
+                "SELECT view_count FROM post_view_count WHERE post_id = ?", Long.class, postId));
+        // every increment saw its own count, none read a value another one had already returned
+        assertEquals(VIEWS, returnedCounts.size());
+    }
+}
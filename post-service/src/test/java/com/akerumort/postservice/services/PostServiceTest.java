@@ -1,24 +1,38 @@
 package com.akerumort.postservice.services;
 
+import com.akerumort.common.web.ChangeCounter;
+import com.akerumort.postservice.dto.BatchResultDto;
+import com.akerumort.postservice.dto.CursorPageDto;
 import com.akerumort.postservice.dto.PostCreateDto;
 import com.akerumort.postservice.dto.PostResponseDto;
+import com.akerumort.postservice.dto.PostSearchResultDto;
 import com.akerumort.postservice.entities.Post;
 import com.akerumort.postservice.entities.PostViewCount;
+import com.akerumort.postservice.exceptions.InvalidPostException;
 import com.akerumort.postservice.mappers.PostMapper;
 import com.akerumort.postservice.services.repo.PostRepoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -31,9 +45,21 @@ public class PostServiceTest {
     @Mock
     private PostViewCountService postViewCountService;
 
+    @Mock
+    private TrendingPostService trendingPostService;
+
+    @Mock
+    private ChangeCounter changeCounter;
+
     @Mock
     private PostMapper postMapper;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private PostService postService;
 
@@ -78,6 +104,16 @@ public class PostServiceTest {
         assertEquals(10, result.getViewCount());
         verify(postRepoService, times(1)).findById(1L);
         verify(postViewCountService, times(1)).incrementViewCount(1L);
+        verify(trendingPostService).recordView(1L);
+    }
+
+    @Test
+    void testRecordViewCountsARevalidatedRead() {
+        postService.recordView(1L);
+
+        verify(postViewCountService, times(1)).incrementViewCount(1L);
+        verify(trendingPostService).recordView(1L);
+        verifyNoInteractions(postMapper);
     }
 
     @Test
@@ -85,13 +121,91 @@ public class PostServiceTest {
         List<Post> posts = Collections.singletonList(post);
         when(postRepoService.findAll()).thenReturn(posts);
         when(postMapper.toDto(any(Post.class))).thenReturn(postResponseDto);
-        when(postViewCountService.getViewCount(anyLong())).thenReturn(10);
+        when(postViewCountService.getViewCounts(anyCollection())).thenReturn(Map.of(1L, 10));
 
         List<PostResponseDto> result = postService.getAllPosts();
 
         assertEquals(1, result.size());
         assertEquals(10, result.get(0).getViewCount());
         verify(postRepoService, times(1)).findAll();
+        verify(postViewCountService, times(1)).getViewCounts(List.of(1L));
+        verify(postViewCountService, never()).getViewCount(anyLong());
+    }
+
+    @Test
+    void testGetPostsPage() {
+        Post next = new Post();
+        next.setId(2L);
+        when(postRepoService.findPage(PostSortField.ID, null, 2)).thenReturn(List.of(post, next));
+        when(postMapper.toDto(any(Post.class))).thenReturn(postResponseDto);
+        when(postViewCountService.getViewCounts(anyCollection())).thenReturn(Map.of(1L, 10));
+
+        CursorPageDto<PostResponseDto> result = postService.getPostsPage(null, "id", 1);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals(1L, PostCursor.decode(PostSortField.ID, result.getNextCursor()).id());
+        verify(postViewCountService, times(1)).getViewCounts(List.of(1L));
+    }
+
+    @Test
+    void testGetPostsPageAfterCursor() {
+        PostCursor cursor = PostCursor.of(PostSortField.CREATED_AT, post);
+        when(postRepoService.findPage(eq(PostSortField.CREATED_AT), any(PostCursor.class), eq(11)))
+                .thenReturn(Collections.emptyList());
+        when(postViewCountService.getViewCounts(anyCollection())).thenReturn(Map.of());
+
+        CursorPageDto<PostResponseDto> result = postService.getPostsPage(cursor.encode(), "createdAt", 10);
+
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(postRepoService, times(1)).findPage(PostSortField.CREATED_AT, cursor, 11);
+    }
+
+    @Test
+    void testGetPostsPageRejectsInvalidInput() {
+        assertThrows(InvalidPostException.class, () -> postService.getPostsPage(null, "id", 0));
+        assertThrows(InvalidPostException.class, () -> postService.getPostsPage(null, "title", 10));
+        assertThrows(InvalidPostException.class, () -> postService.getPostsPage("not a cursor", "id", 10));
+        verifyNoInteractions(postRepoService);
+    }
+
+    @Test
+    void testSearchPosts() {
+        PostSearchResultDto first = searchResult(5L, 0.9f);
+        PostSearchResultDto second = searchResult(3L, 0.4f);
+        when(postRepoService.search("java", null, 2)).thenReturn(List.of(first, second));
+
+        CursorPageDto<PostSearchResultDto> page = postService.searchPosts("java", null, 1);
+
+        assertEquals(List.of(first), page.getItems());
+        assertEquals(new PostSearchCursor(0.9f, 5L), PostSearchCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void testSearchPostsAfterCursor() {
+        String after = new PostSearchCursor(0.9f, 5L).encode();
+        when(postRepoService.search("java", new PostSearchCursor(0.9f, 5L), 11))
+                .thenReturn(List.of(searchResult(3L, 0.4f)));
+
+        CursorPageDto<PostSearchResultDto> page = postService.searchPosts("java", after, 10);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testSearchPostsRejectsInvalidInput() {
+        assertThrows(InvalidPostException.class, () -> postService.searchPosts(" ", null, 10));
+        assertThrows(InvalidPostException.class, () -> postService.searchPosts("java", null, 0));
+        assertThrows(InvalidPostException.class, () -> postService.searchPosts("java", "not a cursor", 10));
+        verifyNoInteractions(postRepoService);
+    }
+
+    private static PostSearchResultDto searchResult(Long id, float rank) {
+        PostSearchResultDto result = new PostSearchResultDto();
+        result.setId(id);
+        result.setRank(rank);
+        return result;
     }
 
     @Test
@@ -106,6 +220,79 @@ public class PostServiceTest {
         verify(postRepoService, times(1)).savePost(any(Post.class));
     }
 
+    @Test
+    void testCreatePosts() {
+        postCreateDto.setUserId(1L);
+        PostCreateDto blankTitle = new PostCreateDto();
+        blankTitle.setUserId(1L);
+        blankTitle.setContent("No title");
+        when(postMapper.toEntity(any(PostCreateDto.class))).thenAnswer(invocation -> new Post());
+        when(postRepoService.insertPosts(anyList())).thenReturn(List.of(7L, 8L));
+
+        BatchResultDto result = postService.createPosts(List.of(postCreateDto, blankTitle, postCreateDto));
+
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getFailed());
+        assertEquals(Arrays.asList(7L, null, 8L), result.getIds());
+        assertEquals(Map.of(1, "Title cannot be blank"), result.getErrors());
+        verify(postRepoService, times(1)).insertPosts(anyList());
+        verify(postRepoService, never()).savePost(any(Post.class));
+        // one change for the whole batch
+        verify(changeCounter, times(1)).recordChange("post");
+    }
+
+    @Test
+    void testImportPostsInsertsInBatches() {
+        ReflectionTestUtils.setField(postService, "insertBatchSize", 2);
+        String ndjson = """
+                {"userId": 1, "title": "First", "content": "One"}
+                {"userId": 1, "title": "Second", "content": "Two"}
+                not json
+
+                {"userId": 1, "title": "Third", "content": "Three"}
+                """;
+        when(postMapper.toEntity(any(PostCreateDto.class))).thenAnswer(invocation -> new Post());
+        when(postRepoService.insertPosts(anyList())).thenReturn(List.of(1L, 2L), List.of(3L));
+
+        BatchResultDto result = postService.importPosts(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, result.getCreated());
+        assertEquals(Arrays.asList(1L, 2L, null, 3L), result.getIds());
+        assertTrue(result.getErrors().get(2).startsWith("Malformed JSON"));
+        verify(postRepoService, times(2)).insertPosts(anyList());
+    }
+
+    @Test
+    void testInsertBatchSizeIsCappedByBindParameters() {
+        assertEquals(5461, PostService.MAX_INSERT_BATCH_SIZE);
+        assertTrue(PostService.MAX_INSERT_BATCH_SIZE * PostRepoService.INSERT_PARAMETERS_PER_POST <= 32767);
+        assertTrue((PostService.MAX_INSERT_BATCH_SIZE + 1) * PostRepoService.INSERT_PARAMETERS_PER_POST > 32767);
+
+        ReflectionTestUtils.setField(postService, "insertBatchSize", 10000);
+        postCreateDto.setUserId(1L);
+        when(postMapper.toEntity(any(PostCreateDto.class))).thenAnswer(invocation -> new Post());
+        // the batch list is reused after each insert, so record the sizes as they arrive
+        List<Integer> batchSizes = new ArrayList<>();
+        when(postRepoService.insertPosts(anyList())).thenAnswer(invocation -> {
+            int size = invocation.<List<Post>>getArgument(0).size();
+            batchSizes.add(size);
+            return Collections.nCopies(size, 1L);
+        });
+
+        postService.createPosts(Collections.nCopies(PostService.MAX_INSERT_BATCH_SIZE + 1, postCreateDto));
+
+        assertEquals(List.of(PostService.MAX_INSERT_BATCH_SIZE, 1), batchSizes);
+    }
+
+    @Test
+    void testCreatePostsRejectsOversizedBatch() {
+        ReflectionTestUtils.setField(postService, "maxBatchSize", 1);
+
+        assertThrows(InvalidPostException.class, () -> postService.createPosts(List.of(postCreateDto, postCreateDto)));
+        verifyNoInteractions(postRepoService);
+    }
+
     @Test
     void testUpdatePost() {
         when(postMapper.toEntity(any(PostCreateDto.class))).thenReturn(post);
@@ -125,5 +312,7 @@ public class PostServiceTest {
         postService.deletePost(1L);
 
         verify(postRepoService, times(1)).deleteById(1L);
+        verify(changeCounter).recordChange("post");
+        verify(trendingPostService).discardViews(1L);
     }
 }
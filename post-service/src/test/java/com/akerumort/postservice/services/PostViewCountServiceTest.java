@@ -1,6 +1,8 @@
 package com.akerumort.postservice.services;
 
+import com.akerumort.common.web.ChangeCounter;
 import com.akerumort.postservice.entities.PostViewCount;
+import com.akerumort.postservice.exceptions.DatabaseAccessException;
 import com.akerumort.postservice.services.repo.PostViewCountRepoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,9 +10,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -19,9 +31,14 @@ public class PostViewCountServiceTest {
     @Mock
     private PostViewCountRepoService postViewCountRepoService;
 
+    @Mock
+    private ChangeCounter changeCounter;
+
     @InjectMocks
     private PostViewCountService postViewCountService;
 
+    private static final int VIEWS = 1000;
+
     private PostViewCount postViewCount;
 
     @BeforeEach
@@ -34,14 +51,100 @@ public class PostViewCountServiceTest {
     @Test
     void testIncrementViewCount() {
         when(postViewCountRepoService.findViewCountById(anyLong())).thenReturn(postViewCount);
-        when(postViewCountRepoService.saveViewCount(any(PostViewCount.class))).thenReturn(postViewCount);
 
         PostViewCount result = postViewCountService.incrementViewCount(1L);
 
         assertNotNull(result);
         assertEquals(11, result.getViewCount());
+        assertEquals(10, postViewCount.getViewCount());
+        verify(postViewCountRepoService, times(1)).findViewCountById(1L);
+        verify(postViewCountRepoService, never()).saveViewCount(any(PostViewCount.class));
+    }
+
+    @Test
+    void testFlushViewCounts() {
+        when(postViewCountRepoService.findViewCountById(anyLong())).thenReturn(postViewCount);
+        postViewCountService.incrementViewCount(1L);
+        postViewCountService.incrementViewCount(1L);
+        postViewCountService.incrementViewCount(2L);
+
+        postViewCountService.flushViewCounts();
+
+        verify(postViewCountRepoService, times(1)).addViewCounts(Map.of(1L, 2L, 2L, 1L));
+        assertEquals(0, postViewCountService.getPendingViews(1L));
+        assertEquals(0, postViewCountService.getPendingViews(2L));
+
+        postViewCountService.flushViewCounts();
+        verify(postViewCountRepoService, times(1)).addViewCounts(anyMap());
+    }
+
+    @Test
+    void testIncrementViewCountReadsTheStoreOnlyForTheFirstView() {
+        when(postViewCountRepoService.findViewCountById(anyLong())).thenReturn(postViewCount);
+
+        postViewCountService.incrementViewCount(1L);
+        postViewCountService.incrementViewCount(1L);
+        PostViewCount result = postViewCountService.incrementViewCount(1L);
+
+        assertEquals(13, result.getViewCount());
         verify(postViewCountRepoService, times(1)).findViewCountById(1L);
-        verify(postViewCountRepoService, times(1)).saveViewCount(postViewCount);
+    }
+
+    @Test
+    void testFlushViewCountsRefreshesCountsAndRemovesIdlePosts() {
+        when(postViewCountRepoService.findViewCountById(anyLong())).thenReturn(postViewCount);
+        // another instance flushed 4 views of the post meanwhile
+        when(postViewCountRepoService.findViewCountsByIds(Set.of(1L))).thenReturn(Map.of(1L, 15));
+        postViewCountService.incrementViewCount(1L);
+
+        postViewCountService.flushViewCounts();
+
+        assertEquals(1, postViewCountService.getPendingPostCount());
+        assertEquals(16, postViewCountService.incrementViewCount(1L).getViewCount());
+        verify(postViewCountRepoService, times(1)).findViewCountById(1L);
+
+        postViewCountService.flushViewCounts();
+        postViewCountService.flushViewCounts();
+
+        assertEquals(0, postViewCountService.getPendingPostCount());
+        postViewCountService.incrementViewCount(1L);
+        verify(postViewCountRepoService, times(2)).findViewCountById(1L);
+    }
+
+    @Test
+    void testFlushViewCountsKeepsPendingOnFailure() {
+        when(postViewCountRepoService.findViewCountById(anyLong())).thenReturn(postViewCount);
+        doThrow(new DatabaseAccessException("Failed to add view counts"))
+                .when(postViewCountRepoService).addViewCounts(anyMap());
+        postViewCountService.incrementViewCount(1L);
+
+        postViewCountService.flushViewCounts();
+
+        assertEquals(1, postViewCountService.getPendingViews(1L));
+        assertEquals(11, postViewCountService.getViewCount(1L));
+    }
+
+    @Test
+    void testIncrementViewCountDirect() {
+        ReflectionTestUtils.setField(postViewCountService, "writeBehind", false);
+        when(postViewCountRepoService.incrementViewCount(anyLong())).thenReturn(postViewCount);
+
+        PostViewCount result = postViewCountService.incrementViewCount(1L);
+
+        assertEquals(10, result.getViewCount());
+        verify(postViewCountRepoService, times(1)).incrementViewCount(1L);
+        verify(postViewCountRepoService, never()).findViewCountById(anyLong());
+    }
+
+    @Test
+    void testConcurrentBufferedIncrementsAreNotLost() throws Exception {
+        when(postViewCountRepoService.findViewCountById(anyLong())).thenReturn(postViewCount);
+
+        runConcurrently(VIEWS, () -> postViewCountService.incrementViewCount(1L));
+        postViewCountService.flushViewCounts();
+
+        verify(postViewCountRepoService, times(1)).addViewCounts(Map.of(1L, (long) VIEWS));
+        assertEquals(0, postViewCountService.getPendingViews(1L));
     }
 
     @Test
@@ -54,4 +157,48 @@ public class PostViewCountServiceTest {
         verify(postViewCountRepoService, times(1)).findViewCountById(1L);
     }
 
+    @Test
+    void testGetViewCountsReturnsStoredCountsOnly() {
+        when(postViewCountRepoService.findViewCountById(anyLong())).thenReturn(postViewCount);
+        when(postViewCountRepoService.findViewCountsByIds(anyCollection())).thenReturn(Map.of(1L, 10, 2L, 0));
+        postViewCountService.incrementViewCount(2L);
+
+        Map<Long, Integer> result = postViewCountService.getViewCounts(List.of(1L, 2L));
+
+        // the pending view shows up in listings once it is flushed, together with a new listing ETag
+        assertEquals(Map.of(1L, 10, 2L, 0), result);
+        verify(postViewCountRepoService, times(1)).findViewCountsByIds(List.of(1L, 2L));
+    }
+
+    @Test
+    void testFlushViewCountsRecordsAChangeOnlyWhenWritten() {
+        when(postViewCountRepoService.findViewCountById(anyLong())).thenReturn(postViewCount);
+        doThrow(new DatabaseAccessException("Failed to add view counts")).doNothing()
+                .when(postViewCountRepoService).addViewCounts(anyMap());
+        postViewCountService.incrementViewCount(1L);
+
+        postViewCountService.flushViewCounts();
+        verify(changeCounter, never()).recordChange(anyString());
+
+        postViewCountService.flushViewCounts();
+        verify(changeCounter, times(1)).recordChange("post_view_count");
+    }
+
+    private static void runConcurrently(int times, Runnable task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < times; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    }
 }
@@ -0,0 +1,105 @@
+package com.akerumort.postservice.services;
+
+import com.akerumort.postservice.dto.TrendingPostDto;
+import com.akerumort.postservice.entities.Post;
+import com.akerumort.postservice.exceptions.InvalidPostException;
+import com.akerumort.postservice.services.repo.PostRepoService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendingPostServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private PostRepoService postRepoService;
+
+    @InjectMocks
+    private TrendingPostService trendingPostService;
+
+    @Test
+    void testGetTrendingPostsKeepsRankOrderAndSkipsDeletedPosts() {
+        Set<Tuple> ranking = new LinkedHashSet<>(List.of(tuple(3L, 5.0), tuple(1L, 2.5), tuple(2L, 1.0)));
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(ranking);
+        when(postRepoService.findAllById(List.of(3L, 1L, 2L))).thenReturn(List.of(post(1L), post(3L)));
+
+        List<TrendingPostDto> result = trendingPostService.getTrendingPosts("24h", 3);
+
+        assertEquals(List.of(3L, 1L), result.stream().map(TrendingPostDto::getId).toList());
+        assertEquals(5.0, result.get(0).getScore());
+        assertEquals("Post 1", result.get(1).getTitle());
+    }
+
+    @Test
+    void testGetTrendingPostsRejectsInvalidParameters() {
+        assertThrows(InvalidPostException.class, () -> trendingPostService.getTrendingPosts("30d", 10));
+        assertThrows(InvalidPostException.class, () -> trendingPostService.getTrendingPosts("1h", 0));
+        assertThrows(InvalidPostException.class, () -> trendingPostService.getTrendingPosts("7d", 101));
+        verifyNoInteractions(redisTemplate, postRepoService);
+    }
+
+    @Test
+    void testFlushKeepsViewsUntilRedisAcceptsThem() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("connection lost"))
+                .thenReturn(List.of());
+        trendingPostService.recordView(1L);
+        trendingPostService.recordView(1L);
+
+        trendingPostService.flushViews();
+        trendingPostService.flushViews();
+        trendingPostService.flushViews();
+
+        // the third flush has nothing left to write
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void testFlushRemovesFlushedPosts() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of());
+        trendingPostService.recordView(1L);
+        trendingPostService.recordView(2L);
+
+        trendingPostService.flushViews();
+
+        assertEquals(0, trendingPostService.getPendingPostCount());
+    }
+
+    @Test
+    void testOlderBucketsWeighLess() {
+        assertEquals(1.0, TrendingWindow.HOUR.bucketWeight(0));
+        assertEquals(0.5, TrendingWindow.HOUR.bucketWeight(3));
+        assertEquals(0.5, TrendingWindow.WEEK.bucketWeight(42));
+    }
+
+    private static Tuple tuple(Long postId, double score) {
+        return new DefaultTuple(postId.toString().getBytes(StandardCharsets.UTF_8), score);
+    }
+
+    private static Post post(Long id) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle("Post " + id);
+        return post;
+    }
+}
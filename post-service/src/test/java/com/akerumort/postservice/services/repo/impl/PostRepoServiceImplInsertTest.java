@@ -0,0 +1,42 @@
+package com.akerumort.postservice.services.repo.impl;
+
+import com.akerumort.postservice.entities.Post;
+import com.akerumort.postservice.services.repo.PostRepoService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Checks the statement shape of the batch insert without a database.
+@ExtendWith(MockitoExtension.class)
+public class PostRepoServiceImplInsertTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private PostRepoServiceImpl postRepoService;
+
+    @Test
+    public void testInsertPostsBindsParametersPerPost() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(1L, 2L));
+
+        postRepoService.insertPosts(List.of(new Post(), new Post()));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(sql.capture(), args.capture());
+        long placeholders = sql.getValue().chars().filter(c -> c == '?').count();
+        assertEquals(2L * PostRepoService.INSERT_PARAMETERS_PER_POST, placeholders);
+        assertEquals(placeholders, args.getValue().length);
+    }
+}
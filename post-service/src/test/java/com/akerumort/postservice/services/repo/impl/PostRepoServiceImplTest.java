@@ -0,0 +1,62 @@
+package com.akerumort.postservice.services.repo.impl;
+
+import com.akerumort.postservice.entities.Post;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the batch insert against postgres. Needs docker, skipped without it.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(PostRepoServiceImpl.class)
+public class PostRepoServiceImplTest {
+
+    private static final int POSTS = 200;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PostRepoServiceImpl postRepoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testInsertPostsReturnsIdsInInputOrder() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            Post post = new Post();
+            post.setUserId((long) i);
+            post.setTitle("Title " + i);
+            post.setContent("Content " + i);
+            post.setCreatedAt(now);
+            post.setUpdatedAt(now);
+            posts.add(post);
+        }
+
+        List<Long> ids = postRepoService.insertPosts(posts);
+
+        assertEquals(POSTS, ids.size());
+        for (int i = 0; i < POSTS; i++) {
+            assertEquals("Title " + i, jdbcTemplate.queryForObject(
+                    "SELECT title FROM post WHERE id = ?", String.class, ids.get(i)));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.akerumort.postservice.services.repo.impl;
+
+import com.akerumort.postservice.entities.PostViewCount;
+import com.akerumort.postservice.exceptions.DatabaseAccessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisSetCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RedisPostViewCountRepoServiceImplTest {
+
+    private static final byte[] DIRTY_KEY = bytes("post:views:dirty");
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private PostViewCountRepoServiceImpl databaseRepoService;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    @Mock
+    private RedisSetCommands setCommands;
+
+    @Mock
+    private RedisScriptingCommands scriptingCommands;
+
+    @InjectMocks
+    private RedisPostViewCountRepoServiceImpl redisRepoService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(connection.stringCommands()).thenReturn(stringCommands);
+        lenient().when(connection.setCommands()).thenReturn(setCommands);
+        lenient().when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        lenient().when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+    }
+
+    @Test
+    void testFirstIncrementSeedsTheCounterFromTheDatabase() {
+        // INCRBY created the counter, so it only holds this view
+        pipelineReturns(List.of(1L, 1L));
+        when(databaseRepoService.findViewCountById(1L)).thenReturn(viewCount(1L, 41));
+        when(stringCommands.incrBy(bytes("post:views:1"), 41L)).thenReturn(42L);
+
+        assertEquals(42, redisRepoService.incrementViewCount(1L).getViewCount());
+    }
+
+    @Test
+    void testIncrementOfAnExistingCounterDoesNotReadTheDatabase() {
+        pipelineReturns(List.of(7L, 0L));
+
+        assertEquals(7, redisRepoService.incrementViewCount(1L).getViewCount());
+        verifyNoInteractions(databaseRepoService);
+    }
+
+    @Test
+    void testReconcileStoresDirtyCountersBatchByBatch() {
+        ReflectionTestUtils.setField(redisRepoService, "reconcileBatchSize", 2);
+        when(setCommands.sPop(DIRTY_KEY, 2))
+                .thenReturn(List.of(bytes("1"), bytes("2")), List.of(bytes("3")), List.of());
+        when(stringCommands.mGet(any(byte[][].class)))
+                .thenReturn(List.of(bytes("5"), bytes("6")), List.of(bytes("7")));
+
+        redisRepoService.reconcile();
+
+        verify(databaseRepoService).storeViewCounts(Map.of(1L, 5L, 2L, 6L));
+        verify(databaseRepoService).storeViewCounts(Map.of(3L, 7L));
+        verify(setCommands, times(3)).sPop(DIRTY_KEY, 2);
+    }
+
+    @Test
+    void testFailedReconcileMarksThePostsDirtyAgain() {
+        when(setCommands.sPop(eq(DIRTY_KEY), anyLong())).thenReturn(List.of(bytes("1"), bytes("2")));
+        when(stringCommands.mGet(any(byte[][].class))).thenReturn(List.of(bytes("5"), bytes("6")));
+        doThrow(new DatabaseAccessException("Failed to write view counts"))
+                .when(databaseRepoService).storeViewCounts(anyMap());
+
+        redisRepoService.reconcile();
+
+        verify(setCommands).sAdd(DIRTY_KEY, bytes("1"), bytes("2"));
+        // the loop stops instead of popping the same posts again
+        verify(setCommands, times(1)).sPop(eq(DIRTY_KEY), anyLong());
+    }
+
+    @Test
+    void testUnavailableRedisFallsBackToTheDatabaseAndBacksOff() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("connection lost"));
+        when(databaseRepoService.incrementViewCount(1L)).thenReturn(viewCount(1L, 11), viewCount(1L, 12));
+
+        assertEquals(11, redisRepoService.incrementViewCount(1L).getViewCount());
+        assertEquals(12, redisRepoService.incrementViewCount(1L).getViewCount());
+
+        // the second view did not wait for redis again
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(databaseRepoService, times(2)).incrementViewCount(1L);
+    }
+
+    @Test
+    void testViewsCountedDuringAnOutageAreAddedToTheCountersOnceRedisIsBack() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("connection lost"))
+                .thenAnswer(invocation -> {
+                    invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+                    return List.of();
+                })
+                .thenReturn(List.of(13L, 0L), List.of(14L, 0L));
+        when(databaseRepoService.incrementViewCount(1L)).thenReturn(viewCount(1L, 11));
+        doNothing().when(databaseRepoService).addViewCounts(Map.of(1L, 2L));
+
+        redisRepoService.incrementViewCount(1L);
+        redisRepoService.addViewCounts(Map.of(1L, 2L));
+        ReflectionTestUtils.setField(redisRepoService, "unavailableUntil", 0L);
+
+        // the replay runs before the first command after the outage, and only once
+        assertEquals(13, redisRepoService.incrementViewCount(1L).getViewCount());
+        assertEquals(14, redisRepoService.incrementViewCount(1L).getViewCount());
+        verify(scriptingCommands, times(1)).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1),
+                aryEq(bytes("post:views:1")), aryEq(bytes("3")));
+    }
+
+    private void pipelineReturns(List<Object> results) {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(results);
+    }
+
+    private static PostViewCount viewCount(Long postId, int count) {
+        PostViewCount postViewCount = new PostViewCount();
+        postViewCount.setPostId(postId);
+        postViewCount.setViewCount(count);
+        return postViewCount;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,39 @@
+package com.akerumort.userservice.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+@Configuration
+public class PasswordHashingConfig {
+
+    @Bean
+    @ConfigurationProperties("password.hashing")
+    public PasswordHashingProperties passwordHashingProperties() {
+        return new PasswordHashingProperties();
+    }
+
+    // hashes are stored as {id}hash, passwords with another id or weaker parameters are rehashed on login
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties properties) {
+        PasswordHashingProperties.Argon2 argon2 = properties.getArgon2();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(properties.getBcryptStrength());
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", new Argon2PasswordEncoder(argon2.getSaltLength(), argon2.getHashLength(),
+                        argon2.getParallelism(), argon2.getMemory(), argon2.getIterations()));
+        if (!encoders.containsKey(properties.getAlgorithm())) {
+            throw new IllegalArgumentException("Unknown password hashing algorithm " + properties.getAlgorithm());
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(properties.getAlgorithm(), encoders);
+        // hashes stored before the {id} prefix was introduced are plain bcrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+}
@@ -0,0 +1,29 @@
+package com.akerumort.userservice.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class PasswordHashingProperties {
+    // bcrypt or argon2, new and rehashed passwords use this algorithm
+    private String algorithm = "bcrypt";
+    // log2 of the bcrypt rounds
+    private int bcryptStrength = 10;
+    private Argon2 argon2 = new Argon2();
+    // threads that hash and verify passwords, kept off the request threads
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // logins waiting for a hashing thread, beyond this they are rejected with 429
+    private int queueCapacity = 100;
+
+    @Getter
+    @Setter
+    public static class Argon2 {
+        private int saltLength = 16;
+        private int hashLength = 32;
+        private int parallelism = 1;
+        // memory cost in KiB
+        private int memory = 19456;
+        private int iterations = 2;
+    }
+}
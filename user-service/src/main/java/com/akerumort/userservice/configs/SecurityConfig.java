@@ -1,56 +1,34 @@
 package com.akerumort.userservice.configs;
 
+import com.akerumort.common.security.JwtAuthenticationResolver;
+import com.akerumort.common.security.RequestAuthorizationCustomizer;
 import com.akerumort.userservice.entities.enums.Role;
-import com.akerumort.userservice.filters.JwtAuthenticationFilter;
-import com.akerumort.userservice.services.CustomUserDetailsService;
-import com.akerumort.userservice.utils.JwtUtil;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+// The chain itself comes from common, see JwtSecurityAutoConfiguration.
 @Configuration
 public class SecurityConfig {
 
-    @Autowired
-    private JwtUtil jwtUtil;
-
-    @Autowired
-    public SecurityConfig(JwtUtil jwtUtil) {
-        this.jwtUtil = jwtUtil;
+    // user-service owns the users, so the principal carries the current roles instead of the token claims alone
+    @Bean
+    public JwtAuthenticationResolver jwtAuthenticationResolver(UserDetailsService userDetailsService) {
+        return claims -> {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        };
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        http
-                .csrf().disable()
-                .authorizeRequests()
-                .requestMatchers("/swagger-ui.html", "/v3/api-docs/**", "/swagger-ui/**").permitAll()
+    public RequestAuthorizationCustomizer requestAuthorizationCustomizer() {
+        return requests -> requests
                 .requestMatchers("/users/register").permitAll()
                 .requestMatchers("/users/login").permitAll()
                 .requestMatchers("/users/logout").authenticated()
                 .requestMatchers("/users/profile").authenticated()
-                .requestMatchers("/users/**").hasAuthority(Role.ROLE_ADMIN.getAuthority())
-                .anyRequest().authenticated()
-                .and()
-                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userDetailsService()),
-                        UsernamePasswordAuthenticationFilter.class);
-
-        return http.build();
-    }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    @Bean
-    public UserDetailsService userDetailsService() {
-        return new CustomUserDetailsService();
+                .requestMatchers("/users/**").hasAuthority(Role.ROLE_ADMIN.getAuthority());
     }
 }
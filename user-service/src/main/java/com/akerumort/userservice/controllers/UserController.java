@@ -1,32 +1,38 @@
 package com.akerumort.userservice.controllers;
 
+import com.akerumort.common.security.TokenRevocationStore;
 import com.akerumort.userservice.dto.UserCreateDTO;
 import com.akerumort.userservice.dto.UserResponseDTO;
+import com.akerumort.userservice.dto.UserUpdateDTO;
 import com.akerumort.userservice.entities.User;
-import com.akerumort.userservice.entities.enums.Role;
 import com.akerumort.userservice.exceptions.CustomValidationException;
 import com.akerumort.userservice.mappers.UserMapper;
+import com.akerumort.userservice.security.AuthenticatedUser;
 import com.akerumort.userservice.services.UserService;
 import com.akerumort.userservice.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.groups.Default;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.security.Principal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -45,6 +51,9 @@ public class UserController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
     @Operation(summary = "Get all users", description = "Allows retrieving a list of all users. " +
             "Accessible only to administrators.")
     @ApiResponses(value = {
@@ -52,12 +61,10 @@ public class UserController {
             @ApiResponse(responseCode = "403", description = "Access denied")
     })
     @GetMapping
-    public List<UserResponseDTO> getAllUsers(Principal principal,
+    public List<UserResponseDTO> getAllUsers(@AuthenticationPrincipal AuthenticatedUser currentUser,
                                              @RequestParam(defaultValue = "0") int page,
                                              @RequestParam(defaultValue = "10") int size) {
-        User currentUser = userService.findByUsername(principal.getName());
-
-        if (currentUser.getRole() == Role.ROLE_ADMIN) {
+        if (currentUser.isAdmin()) {
             List<User> users = userService.getAllUsers(page, size);
             return users.stream()
                     .map(userMapper::toDTO)
@@ -75,13 +82,10 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/{id}")
-    public UserResponseDTO getUserById(@PathVariable Long id, Principal principal) {
-        User currentUser = userService.findByUsername(principal.getName());
-        User user = userService.getUserById(id);
-
+    public UserResponseDTO getUserById(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         // for ROLE_ADMIN and auth user
-        if (currentUser.getRole() == Role.ROLE_ADMIN || currentUser.getId().equals(id)) {
-            return userMapper.toDTO(user);
+        if (currentUser.canAccess(id)) {
+            return userMapper.toDTO(userService.getUserById(id));
         } else {
             throw new CustomValidationException("Access denied");
         }
@@ -93,7 +97,9 @@ public class UserController {
             @ApiResponse(responseCode = "400", description = "Invalid data")
     })
     @PostMapping
-    public UserResponseDTO createUser(@Valid @RequestBody UserCreateDTO userCreateDTO, BindingResult bindingResult) {
+    public UserResponseDTO createUser(@Validated({Default.class, UserCreateDTO.OnCreate.class})
+                                      @RequestBody UserCreateDTO userCreateDTO,
+                                      BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             throw new CustomValidationException(bindingResult.getAllErrors().toString());
         }
@@ -113,20 +119,17 @@ public class UserController {
     public ResponseEntity<UserResponseDTO> updateUser(@PathVariable Long id,
                                                       @Valid @RequestBody UserCreateDTO userCreateDTO,
                                                       BindingResult bindingResult,
-                                                      Principal principal) {
+                                                      @AuthenticationPrincipal AuthenticatedUser currentUser) {
         if (bindingResult.hasErrors()) {
             throw new CustomValidationException(bindingResult.getAllErrors().toString());
         }
 
-        User currentUser = userService.findByUsername(principal.getName());
-        User userToUpdate = userService.getUserById(id);
-
-        if (currentUser.getRole() == Role.ROLE_ADMIN || currentUser.getId().equals(id)) {
-            userToUpdate = userMapper.toEntity(userCreateDTO);
+        if (currentUser.canAccess(id)) {
+            User userToUpdate = userMapper.toEntity(userCreateDTO);
             userToUpdate.setId(id);
             User updatedUser = userService.saveUser(userToUpdate);
 
-            String newToken = jwtUtil.generateToken(updatedUser.getUsername());
+            String newToken = jwtUtil.generateToken(updatedUser);
 
             HttpHeaders headers = new HttpHeaders();
             headers.add("Authorization", "Bearer " + newToken);
@@ -137,6 +140,35 @@ public class UserController {
         }
     }
 
+    @Operation(summary = "Partially update a user", description = "Allows changing only the given fields of a user. " +
+            "Accessible to administrators and the profile owner.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User updated"),
+            @ApiResponse(responseCode = "403", description = "Access denied"),
+            @ApiResponse(responseCode = "400", description = "Invalid data")
+    })
+    @PatchMapping("/{id}")
+    public ResponseEntity<UserResponseDTO> patchUser(@PathVariable Long id,
+                                                     @Valid @RequestBody UserUpdateDTO userUpdateDTO,
+                                                     BindingResult bindingResult,
+                                                     @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (bindingResult.hasErrors()) {
+            throw new CustomValidationException(bindingResult.getAllErrors().toString());
+        }
+
+        if (!currentUser.canAccess(id)) {
+            throw new CustomValidationException("Access denied");
+        }
+        User updatedUser = userService.patchUser(id, userUpdateDTO);
+
+        String newToken = jwtUtil.generateToken(updatedUser);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Authorization", "Bearer " + newToken);
+
+        return ResponseEntity.ok().headers(headers).body(userMapper.toDTO(updatedUser));
+    }
+
     @Operation(summary = "Delete a user", description = "Allows deleting a user." +
             " Accessible to administrators and the profile owner.")
     @ApiResponses(value = {
@@ -145,11 +177,9 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @DeleteMapping("/{id}")
-    public void deleteUser(@PathVariable Long id, Principal principal) {
-        User currentUser = userService.findByUsername(principal.getName());
-        User userToDelete = userService.getUserById(id);
-
-        if (currentUser.getRole() == Role.ROLE_ADMIN || currentUser.getId().equals(id)) {
+    public void deleteUser(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser.canAccess(id)) {
+            userService.getUserById(id);
             userService.deleteUser(id);
         } else {
             throw new CustomValidationException("Access denied");
@@ -162,7 +192,8 @@ public class UserController {
             @ApiResponse(responseCode = "400", description = "Invalid data")
     })
     @PostMapping("/register")
-    public ResponseEntity<UserResponseDTO> registerUser(@Valid @RequestBody UserCreateDTO userCreateDTO,
+    public ResponseEntity<UserResponseDTO> registerUser(@Validated({Default.class, UserCreateDTO.OnCreate.class})
+                                                        @RequestBody UserCreateDTO userCreateDTO,
                                                         BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             throw new RuntimeException(bindingResult.getAllErrors().toString());
@@ -175,13 +206,14 @@ public class UserController {
     @Operation(summary = "User login", description = "Allows a user to log in.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User logged in"),
-            @ApiResponse(responseCode = "401", description = "Invalid login credentials")
+            @ApiResponse(responseCode = "401", description = "Invalid login credentials"),
+            @ApiResponse(responseCode = "429", description = "Too many concurrent logins")
     })
     @PostMapping("/login")
-    public ResponseEntity<Map<String, String>> loginUser(@Valid @RequestBody UserCreateDTO userCreateDTO,
-                                                         BindingResult bindingResult) {
-        Map<String, String> response = userService.loginUser(userCreateDTO, bindingResult);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<Map<String, String>>> loginUser(@Validated({Default.class, UserCreateDTO.OnCreate.class})
+                                                                            @RequestBody UserCreateDTO userCreateDTO,
+                                                                            BindingResult bindingResult) {
+        return userService.loginUser(userCreateDTO, bindingResult).thenApply(ResponseEntity::ok);
     }
 
     @Operation(summary = "View profile", description = "Allows retrieving the profile of the current user.")
@@ -190,10 +222,8 @@ public class UserController {
             @ApiResponse(responseCode = "401", description = "User not authenticated")
     })
     @GetMapping("/profile")
-    public ResponseEntity<UserResponseDTO> getUserProfile(@RequestHeader("Authorization") String token) {
-        String jwtToken = token.substring(7);
-        String username = jwtUtil.extractUsername(jwtToken);
-        User user = userService.findByUsername(username);
+    public ResponseEntity<UserResponseDTO> getUserProfile(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        User user = userService.getUserById(currentUser.getId());
         return ResponseEntity.ok(userMapper.toDTO(user));
     }
 
@@ -204,16 +234,16 @@ public class UserController {
     })
     @PutMapping("/profile")
     public ResponseEntity<UserResponseDTO> updateProfile(@Valid @RequestBody UserCreateDTO userCreateDTO,
-                                                         BindingResult bindingResult, Principal principal) {
+                                                         BindingResult bindingResult,
+                                                         @AuthenticationPrincipal AuthenticatedUser currentUser) {
         if (bindingResult.hasErrors()) {
             throw new CustomValidationException(bindingResult.getAllErrors().toString());
         }
-        User currentUser = userService.findByUsername(principal.getName());
         User updatedUser = userMapper.toEntity(userCreateDTO);
         updatedUser.setId(currentUser.getId());
         User savedUser = userService.saveUser(updatedUser);
 
-        String newToken = jwtUtil.generateToken(savedUser.getUsername());
+        String newToken = jwtUtil.generateToken(savedUser);
 
         HttpHeaders headers = new HttpHeaders();
         headers.add("Authorization", "Bearer " + newToken);
@@ -227,8 +257,8 @@ public class UserController {
             @ApiResponse(responseCode = "401", description = "User not authenticated")
     })
     @DeleteMapping("/profile")
-    public ResponseEntity<Void> deleteProfile(Principal principal) {
-        userService.deleteUserByUsername(principal.getName());
+    public ResponseEntity<Void> deleteProfile(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        userService.deleteUser(currentUser.getId());
         return ResponseEntity.noContent().build();
     }
 
@@ -244,10 +274,11 @@ public class UserController {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            Claims claims = jwtUtil.extractAllClaims(token);
+            String username = claims.getSubject();
 
             logger.info("User with username {} is logging out", username);
-            jwtUtil.invalidateToken(token);
+            tokenRevocationStore.revoke(claims, token);
             logger.info("Token for user {} has been invalidated", username);
 
             response.put("message", "Successfully logged out");
@@ -11,6 +11,10 @@ import lombok.Setter;
 @Schema(description = "DTO for creating a new user")
 public class UserCreateDTO {
 
+    // checks that only apply when a user is created or logs in, a PUT without them keeps the stored value
+    public interface OnCreate {
+    }
+
     @NotNull(message = "Username is required")
     @Schema(description = "Username of the user", example = "ivan_ivanov")
     private String username;
@@ -27,9 +31,9 @@ public class UserCreateDTO {
     @Schema(description = "Email of the user", example = "ivanov@example.com")
     private String email;
 
-    @NotBlank(message = "Password is required")
+    @NotBlank(message = "Password is required", groups = OnCreate.class)
     @Size(min = 8, message = "Password must be at least 8 characters long")
-    @Schema(description = "Password of the user", example = "password123")
+    @Schema(description = "Password of the user, optional on updates", example = "password123")
     private String password;
 
     @Size(max = 1024, message = "Bio can't be longer than 1024 characters")
@@ -1,71 +0,0 @@
-package com.akerumort.userservice.filters;
-
-import com.akerumort.userservice.utils.JwtUtil;
-import com.akerumort.userservice.exceptions.JwtValidationException;
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.stereotype.Component;
-
-import java.io.IOException;
-import org.springframework.web.filter.OncePerRequestFilter;
-
-@Component
-public class JwtAuthenticationFilter extends OncePerRequestFilter {
-
-    private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
-
-    @Autowired
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
-        this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
-    }
-
-    @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
-            throws ServletException, IOException {
-
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            try {
-                if (jwtUtil.isTokenBlacklisted(token)) {
-                    handleException(response, "Token has been invalidated.");
-                    return;
-                }
-                String username = jwtUtil.extractUsername(token);
-                if (jwtUtil.validateToken(token, username)) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
-            } catch (UsernameNotFoundException | JwtValidationException ex) {
-                handleException(response, ex.getMessage());
-                return;
-            } catch (AuthenticationException ex) {
-                handleException(response, "Authentication error: " + ex.getMessage());
-                return;
-            }
-        }
-        chain.doFilter(request, response);
-    }
-
-    private void handleException(HttpServletResponse response, String message) throws IOException {
-        if (!response.isCommitted()) {
-            response.setStatus(HttpStatus.UNAUTHORIZED.value());
-            response.setContentType("application/json");
-            response.getWriter().write("{\"error\": \"" + message + "\"}");
-        }
-    }
-}
\ No newline at end of file
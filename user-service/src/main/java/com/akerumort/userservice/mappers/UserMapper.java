@@ -2,8 +2,13 @@ package com.akerumort.userservice.mappers;
 
 import com.akerumort.userservice.dto.UserCreateDTO;
 import com.akerumort.userservice.dto.UserResponseDTO;
+import com.akerumort.userservice.dto.UserUpdateDTO;
 import com.akerumort.userservice.entities.User;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 @Mapper(componentModel = "spring")
 public interface UserMapper {
@@ -11,4 +16,11 @@ public interface UserMapper {
     User toEntity(UserCreateDTO userCreateDTO);
 
     UserResponseDTO toDTO(User user);
+
+    // null fields keep the current value, the password is hashed by UserService
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    void updateEntity(UserUpdateDTO userUpdateDTO, @MappingTarget User user);
 }
@@ -0,0 +1,41 @@
+package com.akerumort.userservice.security;
+
+import com.akerumort.userservice.entities.User;
+import com.akerumort.userservice.entities.enums.Role;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+// Principal put into the SecurityContext by the JWT filter, so controllers get the id and role without a query.
+@Getter
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final Role role;
+
+    public AuthenticatedUser(User user) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.password = user.getPassword();
+        this.role = user.getRole();
+    }
+
+    public boolean isAdmin() {
+        return role == Role.ROLE_ADMIN;
+    }
+
+    // admins may act on every user, everyone else only on themselves
+    public boolean canAccess(Long userId) {
+        return isAdmin() || id.equals(userId);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(role);
+    }
+}
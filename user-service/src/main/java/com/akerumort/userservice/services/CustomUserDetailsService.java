@@ -1,38 +1,73 @@
 package com.akerumort.userservice.services;
 
 import com.akerumort.userservice.entities.User;
+import com.akerumort.userservice.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.akerumort.userservice.repos.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    // changes made here evict the entry at once, the ttl bounds how long other replicas keep an old role
+    private static final Duration USER_DETAILS_TTL = Duration.ofSeconds(30);
+    private static final int USER_DETAILS_CACHE_SIZE = 10_000;
+
     @Autowired
     private UserRepository userRepository;
 
+    // usernames of the cached entries by user id, so an eviction by id needs no scan of the cache
+    private final Map<Long, String> usernamesById = new ConcurrentHashMap<>();
+
+    private final Cache<String, AuthenticatedUser> userDetailsCache = Caffeine.newBuilder()
+            .maximumSize(USER_DETAILS_CACHE_SIZE)
+            .expireAfterWrite(USER_DETAILS_TTL)
+            .evictionListener((String username, AuthenticatedUser user, RemovalCause cause) -> forget(username, user))
+            .build();
+
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    public AuthenticatedUser loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (username == null) {
+            throw new UsernameNotFoundException("User not found with username: null");
+        }
+        return userDetailsCache.get(username, this::loadUser);
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            forget(username, userDetailsCache.asMap().remove(username));
+        }
+    }
+
+    // also finds the entry after a rename, the index still holds the username it was cached under
+    public void evict(Long id) {
+        String username = usernamesById.remove(id);
+        if (username != null) {
+            userDetailsCache.invalidate(username);
+        }
+    }
+
+    private AuthenticatedUser loadUser(String username) {
         User user = userRepository.findByUsername(username);
         if (user == null) {
             throw new UsernameNotFoundException("User not found with username: " + username);
         }
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                getAuthorities(user)
-        );
+        usernamesById.put(user.getId(), username);
+        return new AuthenticatedUser(user);
     }
 
-    private Collection<? extends GrantedAuthority> getAuthorities(User user) {
-        return Collections.singletonList(user.getRole());
+    private void forget(String username, AuthenticatedUser user) {
+        if (user != null) {
+            usernamesById.remove(user.getId(), username);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,24 +1,32 @@
 package com.akerumort.userservice.services;
 
 import com.akerumort.userservice.dto.UserCreateDTO;
+import com.akerumort.userservice.dto.UserUpdateDTO;
 import com.akerumort.userservice.entities.User;
 import com.akerumort.userservice.entities.enums.Role;
 import com.akerumort.userservice.exceptions.CustomValidationException;
+import com.akerumort.userservice.mappers.UserMapper;
 import com.akerumort.userservice.repos.UserRepository;
 import com.akerumort.userservice.utils.JwtUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.validation.BindingResult;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class UserService {
@@ -34,6 +42,15 @@ public class UserService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
     public List<User> getAllUsers(int page, int size) {
         logger.info("Fetching users with pagination");
         Pageable pageable = PageRequest.of(page, size);
@@ -46,35 +63,68 @@ public class UserService {
         return userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    // duplicate usernames and emails are caught by the unique constraints instead of being looked up first
+    @Transactional
     public User saveUser(User user) {
         if (user.getId() == null) {
-            if (userRepository.findByUsername(user.getUsername()) != null) {
-                throw new CustomValidationException("Username already exists.");
-            }
-            if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-                throw new CustomValidationException("Email already exists.");
-            }
             if (user.getRole() == null) {
                 user.setRole(Role.ROLE_USER);
             }
+            user.setPassword(passwordEncoder.encode(user.getPassword()));
         } else {
             User existingUser = userRepository.findById(user.getId()).orElseThrow(() -> new RuntimeException("User not found"));
-            if (!existingUser.getUsername().equals(user.getUsername()) && userRepository.findByUsername(user.getUsername()) != null) {
+            // a PUT without a password keeps the current one
+            if (user.getPassword() == null || user.getPassword().isBlank()) {
+                user.setPassword(existingUser.getPassword());
+            } else {
+                user.setPassword(passwordEncoder.encode(user.getPassword()));
+            }
+        }
+
+        logger.info("Saving user " + user.getUsername());
+        return saveAndCheckUnique(user);
+    }
+
+    // only the fields present in the request are changed, and only changed columns are written
+    @Transactional
+    public User patchUser(Long id, UserUpdateDTO userUpdateDTO) {
+        User user = getUserById(id);
+        userMapper.updateEntity(userUpdateDTO, user);
+        if (userUpdateDTO.getPassword() != null) {
+            user.setPassword(passwordEncoder.encode(userUpdateDTO.getPassword()));
+        }
+        logger.info("Patching user by id: " + id);
+        return saveAndCheckUnique(user);
+    }
+
+    private User saveAndCheckUnique(User user) {
+        try {
+            User savedUser = userRepository.save(user);
+            // flush here so a constraint violation surfaces now rather than at commit
+            userRepository.flush();
+            if (user.getId() != null) {
+                evictPrincipal(user.getId());
+            }
+            return savedUser;
+        } catch (DataIntegrityViolationException e) {
+            String constraint = e.getCause() instanceof ConstraintViolationException violation
+                    ? violation.getConstraintName() : null;
+            logger.info("User {} violates constraint {}", user.getUsername(), constraint);
+            if ("uk_user_username".equals(constraint)) {
                 throw new CustomValidationException("Username already exists.");
             }
-            if (!existingUser.getEmail().equals(user.getEmail()) && userRepository.findByEmail(user.getEmail()).isPresent()) {
+            if ("uk_user_email".equals(constraint)) {
                 throw new CustomValidationException("Email already exists.");
             }
+            // any other constraint is a bug rather than a taken username or email
+            throw e;
         }
-
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        logger.info("Saving user with encoded password: " + user.getPassword());
-        return userRepository.save(user);
     }
 
     public void deleteUser(Long id) {
         logger.info("Deleting user by id: " + id);
         userRepository.deleteById(id);
+        evictPrincipal(id);
     }
 
     public User updateUserProfile(Long id, User updatedUser) {
@@ -91,7 +141,9 @@ public class UserService {
             if (updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
                 user.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
             }
-            return userRepository.save(user);
+            User savedUser = userRepository.save(user);
+            evictPrincipal(id);
+            return savedUser;
         }
         return null;
     }
@@ -107,7 +159,7 @@ public class UserService {
         return matches;
     }
 
-    public Map<String, String> loginUser(UserCreateDTO userCreateDTO, BindingResult bindingResult) {
+    public CompletableFuture<Map<String, String>> loginUser(UserCreateDTO userCreateDTO, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             String errorMessage = bindingResult.getAllErrors().toString();
             logger.error("Validation errors: {}", errorMessage);
@@ -115,20 +167,31 @@ public class UserService {
         }
 
         User user = findByUsername(userCreateDTO.getUsername());
-        if (user != null) {
-            logger.info("User found: " + user.getUsername());
-            if (checkPassword(userCreateDTO.getPassword(), user.getPassword())) {
-                String token = jwtUtil.generateToken(user.getUsername());
-                Map<String, String> response = new HashMap<>();
-                response.put("token", token);
-                return response;
-            } else {
+        if (user == null) {
+            logger.info("User not found");
+            throw new CustomValidationException("Invalid username or password");
+        }
+        logger.info("User found: " + user.getUsername());
+        return passwordHashingService.submit(() -> {
+            if (!checkPassword(userCreateDTO.getPassword(), user.getPassword())) {
                 logger.info("Password does not match");
+                throw new CustomValidationException("Invalid username or password");
             }
-        } else {
-            logger.info("User not found");
+            rehashIfOutdated(user, userCreateDTO.getPassword());
+            String token = jwtUtil.generateToken(user);
+            Map<String, String> response = new HashMap<>();
+            response.put("token", token);
+            return response;
+        });
+    }
+
+    // the raw password is only available at login, so that is when hashes from older settings are replaced
+    private void rehashIfOutdated(User user, String rawPassword) {
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            logger.info("Rehashing password of user {} with the current settings", user.getUsername());
+            userRepository.updatePassword(user.getId(), passwordEncoder.encode(rawPassword));
+            evictPrincipal(user.getId());
         }
-        throw new CustomValidationException("Invalid username or password");
     }
 
     public void deleteUserByUsername(String username) {
@@ -136,8 +199,23 @@ public class UserService {
         if (user != null) {
             logger.info("Deleting user by username: " + username);
             userRepository.delete(user);
+            evictPrincipal(user.getId());
         } else {
             throw new RuntimeException("User not found");
         }
     }
-}
\ No newline at end of file
+
+    // evicting before commit would let a concurrent request cache the old row again
+    private void evictPrincipal(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userDetailsService.evict(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userDetailsService.evict(id);
+            }
+        });
+    }
+}
@@ -1,65 +1,66 @@
 package com.akerumort.userservice.utils;
 
-import com.akerumort.userservice.exceptions.JwtValidationException;
+import com.akerumort.common.security.JwtAuthenticationFilter;
+import com.akerumort.common.security.JwtKeyring;
+import com.akerumort.common.security.JwtVerifier;
+import com.akerumort.userservice.entities.User;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
     private static final Logger logger = LogManager.getLogger(JwtUtil.class);
-    private static final SecretKey SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
     private static final int TOKEN_VALIDITY = 3600 * 1000; // 1 hour
 
-    private final Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
+    private final JwtKeyring keyring;
+    private final JwtVerifier jwtVerifier;
+
+    @Autowired
+    public JwtUtil(JwtKeyring keyring, JwtVerifier jwtVerifier) {
+        this.keyring = keyring;
+        this.jwtVerifier = jwtVerifier;
+    }
+
+    // the role goes into the token so the other services can authorize without asking user-service
+    public String generateToken(User user) {
+        List<String> roles = user.getRole() == null ? List.of() : List.of(user.getRole().getAuthority());
+        return generateToken(user.getUsername(), roles);
+    }
 
     public String generateToken(String username) {
+        return generateToken(username, List.of());
+    }
+
+    private String generateToken(String username, List<String> roles) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtAuthenticationFilter.ROLES_CLAIM, roles);
         String token = Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY))
-                .signWith(SECRET_KEY)
+                .setHeaderParam(JwsHeader.KEY_ID, keyring.getActiveKeyId())
+                .signWith(keyring.getActiveKey())
                 .compact();
-        System.out.println("Generated token: " + token);
+        logger.debug("Generated token for {} signed with kid {}", username, keyring.getActiveKeyId());
         return token;
     }
 
     public Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-        } catch (SignatureException e) {
-            // logger.error("JWT signature does not match: {}", e.getMessage(), e);
-            logger.error("JWT signature does not match: {}", e.getMessage());
-            throw new JwtValidationException("JWT signature does not match locally computed signature.");
-        } catch (ExpiredJwtException e) {
-            // logger.error("JWT token has expired: {}", e.getMessage(), e);
-            logger.error("JWT token has expired: {}", e.getMessage());
-            throw new JwtValidationException("JWT token has expired.");
-        } catch (Exception e) {
-            // logger.error("JWT extraction failed: {}", e.getMessage(), e);
-            logger.error("JWT extraction failed: {}", e.getMessage());
-            throw new JwtValidationException("JWT validity cannot be asserted and should not be trusted.");
-        }
+        return jwtVerifier.verify(token);
     }
 
     public String extractUsername(String token) {
@@ -74,11 +75,4 @@ public class JwtUtil {
         return (extractUsername(token).equals(username) && !isTokenExpired(token));
     }
 
-    public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
-    }
-
-    public void invalidateToken(String token) {
-        blacklistedTokens.add(token);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.akerumort.userservice.configs;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Hash and verify cost of the password.hashing settings, to pick a cost that fits the login latency budget.
+// A verify costs one login on a password-hashing thread, run with: java ... PasswordHashingBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    // bcrypt-<strength> or argon2-<memory KiB>-<iterations>
+    @Param({"bcrypt-10", "bcrypt-12", "bcrypt-14", "argon2-19456-2", "argon2-47104-1", "argon2-65536-3"})
+    private String setting;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = setting.split("-");
+        encoder = "bcrypt".equals(parts[0])
+                ? new BCryptPasswordEncoder(Integer.parseInt(parts[1]))
+                : new Argon2PasswordEncoder(16, 32, 1, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        hash = encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String hash() {
+        return encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return encoder.matches("correct horse battery staple", hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PasswordHashingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
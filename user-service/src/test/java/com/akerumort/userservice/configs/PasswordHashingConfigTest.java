@@ -0,0 +1,52 @@
+package com.akerumort.userservice.configs;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHashingConfigTest {
+
+    private final PasswordHashingConfig config = new PasswordHashingConfig();
+
+    @Test
+    void testLegacyBcryptHashesStillMatchAndAreUpgraded() {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setBcryptStrength(5);
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret");
+
+        PasswordEncoder encoder = config.passwordEncoder(properties);
+
+        assertTrue(encoder.matches("secret", legacyHash));
+        assertTrue(encoder.upgradeEncoding(legacyHash));
+    }
+
+    @Test
+    void testHashesWithCurrentSettingsAreNotUpgraded() {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setBcryptStrength(4);
+        PasswordEncoder encoder = config.passwordEncoder(properties);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("{bcrypt}"));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void testSwitchingToArgon2UpgradesBcryptHashes() {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setBcryptStrength(4);
+        String bcryptHash = config.passwordEncoder(properties).encode("secret");
+        properties.setAlgorithm("argon2");
+        properties.getArgon2().setMemory(1024);
+        properties.getArgon2().setIterations(1);
+
+        PasswordEncoder encoder = config.passwordEncoder(properties);
+
+        assertTrue(encoder.matches("secret", bcryptHash));
+        assertTrue(encoder.upgradeEncoding(bcryptHash));
+        assertTrue(encoder.matches("secret", encoder.encode("secret")));
+    }
+}
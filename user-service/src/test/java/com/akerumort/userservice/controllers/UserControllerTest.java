@@ -0,0 +1,162 @@
+package com.akerumort.userservice.controllers;
+
+import com.akerumort.common.security.TokenRevocationStore;
+import com.akerumort.userservice.entities.User;
+import com.akerumort.userservice.entities.enums.Role;
+import com.akerumort.userservice.exceptions.GlobalExceptionHandler;
+import com.akerumort.userservice.mappers.UserMapper;
+import com.akerumort.userservice.repos.UserRepository;
+import com.akerumort.userservice.security.AuthenticatedUser;
+import com.akerumort.userservice.services.CustomUserDetailsService;
+import com.akerumort.userservice.services.PasswordHashingService;
+import com.akerumort.userservice.services.UserService;
+import com.akerumort.userservice.utils.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mapstruct.factory.Mappers;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs the PUT and POST bodies through request validation and the real UserService, only the repository is mocked.
+@ExtendWith(MockitoExtension.class)
+public class UserControllerTest {
+
+    private static final String STORED_HASH = "$2a$10$storedhash";
+    private static final String BODY_WITHOUT_PASSWORD = """
+            {"username": "testuser", "firstName": "Test", "lastName": "User",
+             "email": "test@example.com", "role": "ROLE_USER"}
+            """;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Spy
+    private UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    @InjectMocks
+    private UserService userService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        UserController userController = new UserController();
+        ReflectionTestUtils.setField(userController, "userService", userService);
+        ReflectionTestUtils.setField(userController, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userController, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(userController, "tokenRevocationStore", tokenRevocationStore);
+        mockMvc = MockMvcBuilders.standaloneSetup(userController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+
+        User stored = new User();
+        stored.setId(1L);
+        stored.setUsername("testuser");
+        stored.setPassword(STORED_HASH);
+        stored.setRole(Role.ROLE_USER);
+        AuthenticatedUser principal = new AuthenticatedUser(stored);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testUpdateUser_WithoutPasswordKeepsStoredHash() throws Exception {
+        stubStoredUser();
+
+        mockMvc.perform(put("/users/1").contentType(MediaType.APPLICATION_JSON).content(BODY_WITHOUT_PASSWORD))
+                .andExpect(status().isOk());
+
+        assertEquals(STORED_HASH, savedUser().getPassword());
+        verify(passwordEncoder, never()).encode(anyString());
+    }
+
+    @Test
+    public void testUpdateProfile_WithoutPasswordKeepsStoredHash() throws Exception {
+        stubStoredUser();
+
+        mockMvc.perform(put("/users/profile").contentType(MediaType.APPLICATION_JSON).content(BODY_WITHOUT_PASSWORD))
+                .andExpect(status().isOk());
+
+        assertEquals(STORED_HASH, savedUser().getPassword());
+        verify(passwordEncoder, never()).encode(anyString());
+    }
+
+    @Test
+    public void testUpdateUser_RejectsShortPassword() throws Exception {
+        String body = BODY_WITHOUT_PASSWORD.replace("\"role\"", "\"password\": \"short\", \"role\"");
+
+        mockMvc.perform(put("/users/1").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testCreateUser_RequiresPassword() throws Exception {
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(BODY_WITHOUT_PASSWORD))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userRepository);
+    }
+
+    private void stubStoredUser() {
+        User stored = new User();
+        stored.setId(1L);
+        stored.setUsername("testuser");
+        stored.setPassword(STORED_HASH);
+        stored.setRole(Role.ROLE_USER);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jwtUtil.generateToken(any(User.class))).thenReturn("token");
+    }
+
+    private User savedUser() {
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).save(saved.capture());
+        return saved.getValue();
+    }
+}
@@ -0,0 +1,85 @@
+package com.akerumort.userservice.services;
+
+import com.akerumort.userservice.entities.User;
+import com.akerumort.userservice.entities.enums.Role;
+import com.akerumort.userservice.repos.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CustomUserDetailsService userDetailsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setPassword("password");
+        user.setRole(Role.ROLE_USER);
+    }
+
+    @Test
+    public void testRepeatedLoadsAreCached() {
+        when(userRepository.findByUsername("testuser")).thenReturn(user);
+
+        userDetailsService.loadUserByUsername("testuser");
+        userDetailsService.loadUserByUsername("testuser");
+
+        verify(userRepository, times(1)).findByUsername("testuser");
+    }
+
+    @Test
+    public void testEvictByIdDropsTheCachedEntry() {
+        when(userRepository.findByUsername("testuser")).thenReturn(user);
+        userDetailsService.loadUserByUsername("testuser");
+
+        user.setRole(Role.ROLE_ADMIN);
+        userDetailsService.evict(1L);
+
+        assertTrue(userDetailsService.loadUserByUsername("testuser").isAdmin());
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    @Test
+    public void testEvictByIdAfterRenameDropsTheOldUsername() {
+        when(userRepository.findByUsername("testuser")).thenReturn(user);
+        userDetailsService.loadUserByUsername("testuser");
+
+        // the rename is saved first, the eviction only knows the id
+        user.setUsername("renamed");
+        userDetailsService.evict(1L);
+        when(userRepository.findByUsername("testuser")).thenReturn(null);
+
+        assertThrows(UsernameNotFoundException.class,
+                () -> userDetailsService.loadUserByUsername("testuser"));
+    }
+
+    @Test
+    public void testEvictByUsernameClearsTheIndex() {
+        when(userRepository.findByUsername("testuser")).thenReturn(user);
+        userDetailsService.loadUserByUsername("testuser");
+
+        userDetailsService.evict("testuser");
+
+        assertEquals(Map.of(), ReflectionTestUtils.getField(userDetailsService, "usernamesById"));
+    }
+}
@@ -2,24 +2,30 @@ package com.akerumort.userservice.services;
 
 import com.akerumort.userservice.dto.UserCreateDTO;
 import com.akerumort.userservice.dto.UserResponseDTO;
+import com.akerumort.userservice.dto.UserUpdateDTO;
 import com.akerumort.userservice.entities.User;
 import com.akerumort.userservice.entities.enums.Role;
 import com.akerumort.userservice.exceptions.CustomValidationException;
 import com.akerumort.userservice.mappers.UserMapper;
 import com.akerumort.userservice.repos.UserRepository;
 import com.akerumort.userservice.utils.JwtUtil;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.BindingResult;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,6 +48,12 @@ public class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
     @InjectMocks
     private UserService userService;
 
@@ -101,8 +113,6 @@ public class UserServiceTest {
 
     @Test
     public void testSaveUser_NewUser() {
-        when(userRepository.findByUsername(anyString())).thenReturn(null);
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(user);
 
@@ -123,13 +133,82 @@ public class UserServiceTest {
     @Test
     public void testSaveUser_ExistingUser() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        user.setId(1L);
-        User result = userService.saveUser(user);
+        User update = new User();
+        update.setId(1L);
+        update.setUsername("testuser");
 
-        assertNotNull(result);
+        User result = userService.saveUser(update);
+
+        assertEquals("password", result.getPassword());
         verify(userRepository, times(1)).save(any(User.class));
+        verify(passwordEncoder, never()).encode(any());
+        verify(userDetailsService, times(1)).evict(1L);
+    }
+
+    @Test
+    public void testSaveUser_ExistingUserWithNewPassword() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(passwordEncoder.encode("newpassword")).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        User update = new User();
+        update.setId(1L);
+        update.setUsername("testuser");
+        update.setPassword("newpassword");
+
+        User result = userService.saveUser(update);
+
+        assertEquals("encodedPassword", result.getPassword());
+    }
+
+    @Test
+    public void testSaveUser_DuplicateUsername() {
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", null, "uk_user_username")));
+
+        User newUser = new User();
+        newUser.setUsername("testuser");
+        newUser.setEmail("new@example.com");
+        newUser.setPassword("password");
+
+        CustomValidationException exception = assertThrows(CustomValidationException.class,
+                () -> userService.saveUser(newUser));
+
+        assertEquals("Username already exists.", exception.getMessage());
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    public void testSaveUser_OtherConstraintIsRethrown() {
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("not null",
+                new ConstraintViolationException("not null", null, "role"));
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenThrow(notNull);
+
+        User newUser = new User();
+        newUser.setUsername("testuser");
+        newUser.setPassword("password");
+
+        assertSame(notNull, assertThrows(DataIntegrityViolationException.class, () -> userService.saveUser(newUser)));
+    }
+
+    @Test
+    public void testPatchUser_OnlyHashesGivenPassword() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+
+        UserUpdateDTO userUpdateDTO = new UserUpdateDTO();
+        userUpdateDTO.setCity("Kazan");
+
+        User result = userService.patchUser(1L, userUpdateDTO);
+
+        assertSame(user, result);
+        verify(userMapper, times(1)).updateEntity(userUpdateDTO, user);
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, times(1)).flush();
     }
 
     @Test
@@ -139,6 +218,7 @@ public class UserServiceTest {
         userService.deleteUser(1L);
 
         verify(userRepository, times(1)).deleteById(1L);
+        verify(userDetailsService, times(1)).evict(1L);
     }
 
     @Test
@@ -166,13 +246,39 @@ public class UserServiceTest {
     public void testLoginUser_Success() {
        when(userRepository.findByUsername(anyString())).thenReturn(user);
        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
-       when(jwtUtil.generateToken(anyString())).thenReturn("token");
+       when(jwtUtil.generateToken(any(User.class))).thenReturn("token");
+       runHashingInline();
 
-       Map<String, String> result = userService.loginUser(userCreateDTO, mock(BindingResult.class));
+       Map<String, String> result = userService.loginUser(userCreateDTO, mock(BindingResult.class)).join();
 
        assertNotNull(result);
        assertEquals("token", result.get("token"));
        verify(userRepository, times(1)).findByUsername(anyString());
+       verify(userRepository, never()).updatePassword(anyLong(), anyString());
+    }
+
+    @Test
+    public void testLoginUser_RehashesOutdatedPassword() {
+        when(userRepository.findByUsername(anyString())).thenReturn(user);
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("password")).thenReturn(true);
+        when(passwordEncoder.encode(anyString())).thenReturn("{argon2}rehashed");
+        when(jwtUtil.generateToken(any(User.class))).thenReturn("token");
+        runHashingInline();
+
+        userService.loginUser(userCreateDTO, mock(BindingResult.class)).join();
+
+        verify(userRepository, times(1)).updatePassword(1L, "{argon2}rehashed");
+    }
+
+    @Test
+    public void testLoginUser_RejectedWhenHashingQueueIsFull() {
+        when(userRepository.findByUsername(anyString())).thenReturn(user);
+        when(passwordHashingService.submit(any())).thenThrow(new RejectedExecutionException("queue full"));
+
+        assertThrows(RejectedExecutionException.class,
+                () -> userService.loginUser(userCreateDTO, mock(BindingResult.class)));
+        verify(passwordEncoder, never()).matches(anyString(), anyString());
     }
 
     @Test
@@ -186,4 +292,9 @@ public class UserServiceTest {
         assertEquals("Invalid username or password", exception.getMessage());
         verify(userRepository, times(1)).findByUsername(anyString());
     }
+
+    private void runHashingInline() {
+        when(passwordHashingService.submit(any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(0).get()));
+    }
 }
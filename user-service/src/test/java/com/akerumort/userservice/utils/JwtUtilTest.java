@@ -0,0 +1,97 @@
+package com.akerumort.userservice.utils;
+
+import com.akerumort.common.security.JwtAuthenticationFilter;
+import com.akerumort.common.security.JwtKeyring;
+import com.akerumort.common.security.JwtProperties;
+import com.akerumort.common.security.JwtValidationException;
+import com.akerumort.common.security.JwtVerifier;
+import com.akerumort.userservice.entities.User;
+import com.akerumort.userservice.entities.enums.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtUtilTest {
+
+    private final SecretKey previousKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final SecretKey currentKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final JwtUtil jwtUtil = jwtUtil(new JwtKeyring("2024-10", Map.of("2024-04", previousKey, "2024-10", currentKey)));
+
+    private static JwtUtil jwtUtil(JwtKeyring keyring) {
+        return new JwtUtil(keyring, new JwtVerifier(keyring));
+    }
+
+    @Test
+    void testExtractAllClaimsReusesVerifiedToken() {
+        String token = jwtUtil.generateToken("testuser");
+
+        Claims claims = jwtUtil.extractAllClaims(token);
+
+        assertEquals("testuser", claims.getSubject());
+        assertSame(claims, jwtUtil.extractAllClaims(token));
+        assertTrue(jwtUtil.validateToken(token, "testuser"));
+    }
+
+    @Test
+    void testTokensSignedWithAnyKeyringKeyAreAccepted() {
+        String oldToken = jwtUtil(new JwtKeyring("2024-04", Map.of("2024-04", previousKey))).generateToken("olduser");
+
+        assertEquals("olduser", jwtUtil.extractUsername(oldToken));
+    }
+
+    @Test
+    void testTokensFromUnknownKeysAreRejected() {
+        SecretKey retiredKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        String token = jwtUtil(new JwtKeyring("2023-10", Map.of("2023-10", retiredKey))).generateToken("testuser");
+
+        assertThrows(JwtValidationException.class, () -> jwtUtil.extractAllClaims(token));
+    }
+
+    @Test
+    void testGeneratedTokenCarriesTheUserRole() {
+        User user = new User();
+        user.setUsername("admin");
+        user.setRole(Role.ROLE_ADMIN);
+
+        Claims claims = jwtUtil.extractAllClaims(jwtUtil.generateToken(user));
+
+        assertEquals(List.of("ROLE_ADMIN"), claims.get(JwtAuthenticationFilter.ROLES_CLAIM, List.class));
+    }
+
+    @Test
+    void testKeyringLoadsKeysFromProperties() {
+        JwtProperties properties = new JwtProperties();
+        properties.setActive("2024-10");
+        properties.setSecrets(Map.of("2024-10", Base64.getEncoder().encodeToString(currentKey.getEncoded())));
+
+        JwtKeyring keyring = JwtKeyring.load(properties);
+
+        assertEquals("2024-10", keyring.getActiveKeyId());
+        assertEquals(currentKey, keyring.getActiveKey());
+    }
+
+    @Test
+    void testVerifyOnlyKeyringAcceptsIssuedTokens() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecrets(Map.of("2024-10", Base64.getEncoder().encodeToString(currentKey.getEncoded())));
+        JwtVerifier verifier = new JwtVerifier(JwtKeyring.load(properties));
+
+        assertEquals("testuser", verifier.verify(jwtUtil.generateToken("testuser")).getSubject());
+    }
+
+    @Test
+    void testExtractAllClaimsRejectsTamperedToken() {
+        String token = jwtUtil.generateToken("testuser");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtValidationException.class, () -> jwtUtil.extractAllClaims(tampered));
+    }
+}